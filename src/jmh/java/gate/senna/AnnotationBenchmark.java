@@ -0,0 +1,93 @@
+package gate.senna;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gate.AnnotationSet;
+import gate.Factory;
+import gate.Gate;
+import gate.util.InvalidOffsetException;
+import senna.Option;
+import senna.mapping.Document;
+import senna.mapping.MultiToken;
+import senna.mapping.ResultParser;
+import senna.mapping.Sentence;
+import senna.mapping.SyntheticSennaOutput;
+import senna.mapping.TagDictionary;
+
+/**
+ * Creating the GATE annotations of all options for a parsed document.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnnotationBenchmark {
+
+	@Param({ "1000" })
+	public int sentences;
+
+	@Param({ "25" })
+	public int tokensPerSentence;
+
+	@Param({ "false", "true" })
+	public boolean compact;
+
+	private SennaAdapter adapter;
+	private gate.Document gateDocument;
+	private AnnotationSet annotationSet;
+	private Document document;
+
+	@Setup(Level.Trial)
+	public void parseDocument() throws Exception {
+		if (!Gate.isInitialised()) {
+			Gate.runInSandbox(true);
+			Gate.init();
+		}
+		SyntheticSennaOutput output = new SyntheticSennaOutput(sentences, tokensPerSentence, false, 1);
+		document = output.createDocument(false, compact ? TagDictionary.getShared() : null);
+		ResultParser.parse(document, output.getOutput(), SyntheticSennaOutput.ALL_OPTIONS);
+		for (Option<? extends MultiToken> option : SyntheticSennaOutput.ALL_OPTIONS) {
+			if (option != Option.POS) {
+				ResultParser.parseAnnotations(document, option, false);
+			}
+		}
+		gateDocument = Factory.newDocument(output.getDocumentText());
+		adapter = new SennaAdapter();
+	}
+
+	@Setup(Level.Invocation)
+	public void clearAnnotations() {
+		gateDocument.removeAnnotationSet("SENNA");
+		annotationSet = gateDocument.getAnnotations("SENNA");
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteDocument() {
+		Factory.deleteResource(gateDocument);
+	}
+
+	@Benchmark
+	public AnnotationSet addAnnotations() throws InvalidOffsetException {
+		for (Sentence sentence : document.getSentences()) {
+			adapter.addAnnotations(0l, gateDocument, sentence, annotationSet);
+		}
+		return annotationSet;
+	}
+
+}
@@ -0,0 +1,102 @@
+package senna;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import senna.mapping.Document;
+import senna.mapping.SyntheticSennaOutput;
+
+/**
+ * Processing a document end to end with {@link FakeSenna} processes, including
+ * process start, partitioning, the pipes and parsing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SennaBenchmark {
+
+	@Param({ "1000" })
+	public int sentences;
+
+	@Param({ "25" })
+	public int tokensPerSentence;
+
+	@Param({ "1", "4" })
+	public int processes;
+
+	@Param({ "false", "true" })
+	public boolean pooled;
+
+	@Param({ "false", "true" })
+	public boolean taskGroups;
+
+	@Param({ "0", "5" })
+	public long tokenDelayMicros;
+
+	@Param({ "200" })
+	public long startupDelayMillis;
+
+	private File directory;
+	private File executable;
+	private ExecutorService executor;
+	private SennaPools pools;
+	private SyntheticSennaOutput output;
+	private Document document;
+
+	@Setup(Level.Trial)
+	public void createExecutable() throws IOException {
+		directory = Files.createTempDirectory("senna-benchmark").toFile();
+		executable = FakeSenna.createExecutable(directory, startupDelayMillis, tokenDelayMicros);
+		executor = Executors.newCachedThreadPool();
+		pools = pooled ? new SennaPools() : null;
+		output = new SyntheticSennaOutput(sentences, tokensPerSentence, false, 1);
+	}
+
+	@Setup(Level.Invocation)
+	public void createDocument() {
+		document = output.createDocument(false, null);
+	}
+
+	@TearDown(Level.Trial)
+	public void shutdown() {
+		if (pools != null) {
+			pools.shutdown();
+		}
+		executor.shutdownNow();
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Benchmark
+	public Document execute() throws Exception {
+		SennaBuilder builder = new SennaBuilder(executable, processes).withExecutor(executor)
+				.withPools(pools).withTaskGroups(taskGroups).outputPos(true).outputChk(true).outputNer(true).outputSrl(true).outputPsg(true)
+				.parseChk(true).parseNer(true).parseSrl(true).parsePsg(true);
+		builder.build().execute(document);
+		return document;
+	}
+
+}
@@ -0,0 +1,107 @@
+package senna.mapping;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building the SENNA input of a document and splitting it into sub documents,
+ * whose results are merged back, or slices like for parallel processes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocumentBenchmark {
+
+	@Param({ "10000" })
+	public int sentences;
+
+	@Param({ "25" })
+	public int tokensPerSentence;
+
+	@Param({ "false", "true" })
+	public boolean userTokens;
+
+	@Param({ "false", "true" })
+	public boolean compact;
+
+	@Param({ "8" })
+	public int parts;
+
+	private SyntheticSennaOutput output;
+	private Document document;
+	private SubDocument[] subDocuments;
+
+	@Setup(Level.Trial)
+	public void createOutput() {
+		output = new SyntheticSennaOutput(sentences, tokensPerSentence, false, 1);
+	}
+
+	@Setup(Level.Invocation)
+	public void createDocument() {
+		document = output.createDocument(userTokens, compact ? TagDictionary.getShared() : null);
+		List<Sentence> documentSentences = document.getSentences();
+		subDocuments = new SubDocument[parts];
+		for (int part = 0; part < parts; part++) {
+			int from = documentSentences.size() * part / parts;
+			int to = documentSentences.size() * (part + 1) / parts;
+			subDocuments[part] = new SubDocument(document, documentSentences.get(from),
+					documentSentences.get(to - 1));
+			ResultParser.parse(subDocuments[part], output.getOutput(from, to), SyntheticSennaOutput.ALL_OPTIONS);
+		}
+	}
+
+	@Benchmark
+	public Document calculateSennaTextAndOffsets() {
+		DocumentBuilder.calculateSennaTextAndOffsets(document);
+		return document;
+	}
+
+	@Benchmark
+	public SubDocument[] createSubDocuments() {
+		List<Sentence> documentSentences = document.getSentences();
+		SubDocument[] created = new SubDocument[parts];
+		for (int part = 0; part < parts; part++) {
+			int from = documentSentences.size() * part / parts;
+			int to = documentSentences.size() * (part + 1) / parts;
+			created[part] = new SubDocument(document, documentSentences.get(from), documentSentences.get(to - 1));
+		}
+		return created;
+	}
+
+	@Benchmark
+	public int createSlices() {
+		DocumentSlice documentSlice = new DocumentSlice(document);
+		int length = 0;
+		for (int part = 0; part < parts; part++) {
+			int from = document.getSentences().size() * part / parts;
+			int to = document.getSentences().size() * (part + 1) / parts;
+			length += documentSlice.slice(from, to).getSennaText().length();
+		}
+		return length;
+	}
+
+	@Benchmark
+	public Document mergeToOriginal() {
+		for (SubDocument subDocument : subDocuments) {
+			subDocument.mergeToOriginal();
+		}
+		return document;
+	}
+
+}
@@ -0,0 +1,64 @@
+package senna.mapping;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import senna.Option;
+
+/**
+ * Building the multi-token annotations of one option from parsed token
+ * columns. POS has no multi-tokens, so it is not a parameter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseAnnotationsBenchmark {
+
+	@Param({ "10000" })
+	public int sentences;
+
+	@Param({ "25" })
+	public int tokensPerSentence;
+
+	@Param({ "CHK", "NER", "SRL", "PSG" })
+	public String option;
+
+	@Param({ "false", "true" })
+	public boolean bracketTags;
+
+	@Param({ "false", "true" })
+	public boolean compact;
+
+	private Option<? extends MultiToken> parsedOption;
+	private Document document;
+
+	@Setup(Level.Trial)
+	public void parseDocument() {
+		SyntheticSennaOutput output = new SyntheticSennaOutput(sentences, tokensPerSentence, bracketTags, 1);
+		parsedOption = SyntheticSennaOutput.option(option);
+		document = output.createDocument(false, compact ? TagDictionary.getShared() : null);
+		ResultParser.parse(document, output.getOutput(), SyntheticSennaOutput.ALL_OPTIONS);
+	}
+
+	@Benchmark
+	public Document parseAnnotations() {
+		ResultParser.parseAnnotations(document, parsedOption, bracketTags);
+		return document;
+	}
+
+}
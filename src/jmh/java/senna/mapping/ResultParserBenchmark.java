@@ -0,0 +1,72 @@
+package senna.mapping;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of the token columns of SENNA output into a fresh document.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultParserBenchmark {
+
+	@Param({ "1000", "10000" })
+	public int sentences;
+
+	@Param({ "25" })
+	public int tokensPerSentence;
+
+	@Param({ "false", "true" })
+	public boolean userTokens;
+
+	@Param({ "false", "true" })
+	public boolean compact;
+
+	private SyntheticSennaOutput output;
+	private String outputText;
+	private byte[] outputBytes;
+	private Document document;
+
+	@Setup(Level.Trial)
+	public void createOutput() {
+		output = new SyntheticSennaOutput(sentences, tokensPerSentence, false, 1);
+		outputText = output.getOutput();
+		outputBytes = output.getOutputBytes();
+	}
+
+	@Setup(Level.Invocation)
+	public void createDocument() {
+		document = output.createDocument(userTokens, compact ? TagDictionary.getShared() : null);
+	}
+
+	@Benchmark
+	public Document parseString() {
+		ResultParser.parse(document, outputText, SyntheticSennaOutput.ALL_OPTIONS);
+		return document;
+	}
+
+	@Benchmark
+	public Document parseStream() throws IOException {
+		ResultParser.parse(document, new ByteArrayInputStream(outputBytes), SyntheticSennaOutput.ALL_OPTIONS);
+		return document;
+	}
+
+}
@@ -7,19 +7,35 @@ import static senna.Option.POS;
 import static senna.Option.PSG;
 import static senna.Option.SRL;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import gate.Annotation;
 import gate.AnnotationSet;
+import gate.Controller;
+import gate.Corpus;
+import gate.CorpusController;
 import gate.DocumentContent;
 import gate.Factory;
 import gate.FeatureMap;
 import gate.Resource;
 import gate.creole.AbstractLanguageAnalyser;
+import gate.creole.ControllerAwarePR;
 import gate.creole.ExecutionException;
 import gate.creole.ResourceInstantiationException;
 import gate.creole.metadata.CreoleParameter;
@@ -27,22 +43,29 @@ import gate.creole.metadata.CreoleResource;
 import gate.creole.metadata.Optional;
 import gate.creole.metadata.RunTime;
 import gate.util.InvalidOffsetException;
+import senna.DiskResultCache;
 import senna.Option;
+import senna.ResultCache;
 import senna.Senna;
 import senna.SennaBuilder;
+import senna.SennaPools;
+import senna.TimeoutPolicy;
 import senna.mapping.Document;
 import senna.mapping.MultiToken;
 import senna.mapping.PsgToken;
 import senna.mapping.Sentence;
+import senna.mapping.SentenceListener;
+import senna.mapping.SentenceStatus;
 import senna.mapping.SrlArgumentToken;
 import senna.mapping.SrlVerbToken;
+import senna.mapping.TagDictionary;
 import senna.mapping.Token;
 
 /**
  * This class is the implementation of the resource SENNAADAPTER.
  */
 @CreoleResource(name = "SennaAdapter", comment = "Integrate SENNA v3.0 (https://ronan.collobert.com/senna/) as a Processing Resource")
-public class SennaAdapter extends AbstractLanguageAnalyser {
+public class SennaAdapter extends AbstractLanguageAnalyser implements ControllerAwarePR {
 
 	private static final long serialVersionUID = 781830027240661071L;
 
@@ -68,9 +91,24 @@ public class SennaAdapter extends AbstractLanguageAnalyser {
 	private static final String ANNOTATION_PSG_FEATURE_PARENTID_NAME = "parent";
 	private static final String ANNOTATION_PSG_FEATURE_CHILDRENIDS_NAME = "children";
 	private static final String RELATION_SRL_NAME = "SRL";
+	// set on the input sentence, or on the document without sentences, if SENNA has not completed it
+	private static final String FEATURE_STATUS_NAME = "sennaStatus";
 
 	private URL executableFile;
 	private Integer parallelProcesses;
+	private Boolean persistentProcesses;
+	private Integer maxProcesses;
+	private Integer batchSentences;
+	private Integer batchLength;
+	private Integer chunkLength;
+	private Integer chunkSentences;
+	private Integer streamingWindow;
+	private Boolean compactTokens;
+	private Integer resultCacheSize;
+	private URL resultCacheDirectory;
+	private Integer documentTimeout;
+	private Integer sentenceTimeout;
+	private TimeoutPolicy timeoutPolicy;
 
 	private Boolean iobTags;
 	private Boolean bracketTags;
@@ -93,25 +131,138 @@ public class SennaAdapter extends AbstractLanguageAnalyser {
 	private Boolean outputSRLAnnotations;
 	private Boolean outputPSGAnnotations;
 
+	private transient SennaPools sennaPools;
+	private transient ResultCache resultCache;
+	private transient File resultCacheFile;
+	private transient boolean batchDocuments;
+	private transient Batch pendingBatch;
+	private transient ExecutorService batchExecutor;
+	private transient Batch runningBatch;
+
+	// handed on by the batch thread once SENNA has finished the batch
+	private static final Sentence END_OF_BATCH = new Sentence(null, 0, 0);
+
+	private static class Batch {
+		private List<BatchPart> parts = new ArrayList<>();
+		private long length;
+		private int sentences;
+		private Future<?> result;
+		private BlockingQueue<Sentence> completed = new LinkedBlockingQueue<>();
+	}
+
+	/**
+	 * When SENNA has started on the first chunk of a GATE document, so its
+	 * chunks share one document timeout. Only used by the batch thread.
+	 */
+	private static class DocumentClock {
+		private boolean started;
+		private long start;
+	}
+
+	private static class BatchPart {
+		private final gate.Document gateDocument;
+		private final Long documentOffset;
+		private final Document sennaDocument;
+		private final AnnotationSet inputAnnotationSet;
+		private final AnnotationSet outputAnnotationSet;
+		private final DocumentClock clock;
+
+		private BatchPart(gate.Document gateDocument, Long documentOffset, Document sennaDocument,
+				AnnotationSet inputAnnotationSet, AnnotationSet outputAnnotationSet, DocumentClock clock) {
+			this.gateDocument = gateDocument;
+			this.clock = clock;
+			this.documentOffset = documentOffset;
+			this.sennaDocument = sennaDocument;
+			this.inputAnnotationSet = inputAnnotationSet;
+			this.outputAnnotationSet = outputAnnotationSet;
+		}
+	}
+
 	@Override
 	public Resource init() throws ResourceInstantiationException {
+		// shared with the duplicates GATE creates for other threads
+		sennaPools = SennaPools.acquireShared();
+		batchExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "senna-adapter-batch");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
 		return this;
 	}
 
+	@Override
+	public void cleanup() {
+		cancelBatches();
+		if (batchExecutor != null) {
+			batchExecutor.shutdownNow();
+			batchExecutor = null;
+		}
+		if (sennaPools != null) {
+			sennaPools.release(this);
+			sennaPools = null;
+		}
+		closeResultCache();
+		super.cleanup();
+	}
+
+	@Override
+	public void controllerExecutionStarted(Controller controller) throws ExecutionException {
+		cancelBatches();
+		batchDocuments = batchSentences != null && batchSentences > 0;
+		if (batchDocuments && controller instanceof CorpusController) {
+			Corpus corpus = ((CorpusController) controller).getCorpus();
+			if (corpus != null && corpus.getDataStore() != null) {
+				// documents loaded from a datastore are unloaded before the batch is executed
+				batchDocuments = false;
+			}
+		}
+	}
+
+	@Override
+	public void controllerExecutionFinished(Controller controller) throws ExecutionException {
+		try {
+			executeBatch();
+			finishBatches();
+		} catch (Exception e) {
+			cancelBatches();
+			throw new ExecutionException(e);
+		} finally {
+			batchDocuments = false;
+		}
+	}
+
+	@Override
+	public void controllerExecutionAborted(Controller controller, Throwable throwable) throws ExecutionException {
+		cancelBatches();
+		batchDocuments = false;
+	}
+
 	@Override
 	public void execute() throws ExecutionException {
 		AnnotationSet inputAnnotationSet = document.getAnnotations(inputASName);
 		AnnotationSet outputAnnotationSet = document.getAnnotations(outputASName);
 
+		if (isStreaming() && verbsFile != null) {
+			// each process reads the verbs file from its start, so the windows cannot share processes
+			throw new ExecutionException("streamingWindow cannot be used with a verbsFile");
+		}
 		try {
-			executeContent(document.getContent(), inputAnnotationSet, outputAnnotationSet);
+			executeContent(document.getContent(), inputAnnotationSet, outputAnnotationSet, new DocumentClock());
+			if (!isBatchingDocuments()) {
+				executeBatch();
+				finishBatches();
+			}
 		} catch (Exception e) {
+			cancelBatches();
 			throw new ExecutionException(e);
 		}
 	}
 
 	private void executeContent(DocumentContent documentContent, AnnotationSet inputAnnotationSet,
-			AnnotationSet outputAnnotationSet) throws Exception {
+			AnnotationSet outputAnnotationSet, DocumentClock clock) throws Exception {
 		List<Sentence> sentences = new ArrayList<>();
 		boolean userTokens = hasValue(inputTokenType);
 		boolean reuseAnnotations = equals(inputASName, outputASName);
@@ -125,17 +276,19 @@ public class SennaAdapter extends AbstractLanguageAnalyser {
 				Long sentenceStart = sentenceAnnotation.getStartNode().getOffset();
 				Long sentenceEnd = sentenceAnnotation.getEndNode().getOffset();
 
-				if ((sentenceEnd - documentOffset) > MAX_INPUT_LENGTH.longValue()) {
+				if (!sentences.isEmpty() && ((sentenceEnd - documentOffset) > maxChunkLength()
+						|| sentences.size() >= maxChunkSentences())) {
 					String documentText = documentContent.getContent(documentOffset, lastSentenceEnd).toString();
-					Document document = new Document(documentText, sentences);
-					executeSenna(documentOffset, document, outputAnnotationSet);
+					Document document = createDocument(documentText, sentences);
+					addToBatch(documentOffset, document, inputAnnotationSet, outputAnnotationSet, clock);
 
 					documentOffset = lastSentenceEnd;
 
 					sentences = new ArrayList<>();
 				}
 
-				Integer id = reuseAnnotations ? sentenceAnnotation.getId() : null;
+				// the id of the input sentence, which is flagged if SENNA does not complete it
+				Integer id = sentenceAnnotation.getId();
 				int documentStart = (int) (sentenceStart - documentOffset);
 				int documentEnd = (int) (sentenceEnd - documentOffset);
 				Sentence sentence;
@@ -151,8 +304,8 @@ public class SennaAdapter extends AbstractLanguageAnalyser {
 			}
 			if (!sentences.isEmpty()) {
 				String documentText = documentContent.getContent(documentOffset, lastSentenceEnd).toString();
-				Document sennaDocument = new Document(documentText, sentences);
-				executeSenna(documentOffset, sennaDocument, outputAnnotationSet);
+				Document sennaDocument = createDocument(documentText, sentences);
+				addToBatch(documentOffset, sennaDocument, inputAnnotationSet, outputAnnotationSet, clock);
 			}
 		} else if (documentContent.size() < MAX_INPUT_LENGTH.longValue()) {
 			Sentence sentence;
@@ -163,14 +316,196 @@ public class SennaAdapter extends AbstractLanguageAnalyser {
 				sentence = new Sentence(null, 0, documentContent.size().intValue());
 			}
 			sentences.add(sentence);
-			Document sennaDocument = new Document(documentContent.getContent(0l, documentContent.size()).toString(),
+			Document sennaDocument = createDocument(documentContent.getContent(0l, documentContent.size()).toString(),
 					sentences);
-			executeSenna(0l, sennaDocument, outputAnnotationSet);
+			addToBatch(0l, sennaDocument, inputAnnotationSet, outputAnnotationSet, clock);
 		} else {
 			throw new IllegalStateException();
 		}
 	}
 
+	private Document createDocument(String documentText, List<Sentence> sentences) {
+		if (Boolean.TRUE.equals(compactTokens)) {
+			return new Document(documentText, sentences, TagDictionary.getShared());
+		}
+		return new Document(documentText, sentences);
+	}
+
+	private void addToBatch(Long documentOffset, Document sennaDocument, AnnotationSet inputAnnotationSet,
+			AnnotationSet outputAnnotationSet, DocumentClock clock) throws Exception {
+		int length = sennaDocument.getDocumentText().length();
+		if (pendingBatch != null && pendingBatch.length + length > maxBatchLength()) {
+			executeBatch();
+		}
+		if (pendingBatch == null) {
+			pendingBatch = new Batch();
+		}
+		pendingBatch.parts.add(new BatchPart(document, documentOffset, sennaDocument, inputAnnotationSet,
+				outputAnnotationSet, clock));
+		pendingBatch.length += length;
+		pendingBatch.sentences += sennaDocument.getSentences().size();
+		if (!isBatchingDocuments() || pendingBatch.sentences >= batchSentences) {
+			executeBatch();
+		}
+	}
+
+	private long maxChunkLength() {
+		if (chunkLength != null && chunkLength > 0) {
+			return Math.min(chunkLength.longValue(), MAX_INPUT_LENGTH.longValue());
+		}
+		return MAX_INPUT_LENGTH.longValue();
+	}
+
+	private int maxChunkSentences() {
+		if (isStreaming()) {
+			return streamingWindow;
+		}
+		if (chunkSentences != null && chunkSentences > 0) {
+			return chunkSentences;
+		}
+		return Integer.MAX_VALUE;
+	}
+
+	private boolean isStreaming() {
+		return streamingWindow != null && streamingWindow > 0;
+	}
+
+	/**
+	 * Windows of a stream are not collected across documents, they would pile up
+	 * in the pending batch.
+	 */
+	private boolean isBatchingDocuments() {
+		return batchDocuments && !isStreaming();
+	}
+
+	private long maxBatchLength() {
+		if (isBatchingDocuments() && batchLength != null && batchLength > 0) {
+			return Math.min(batchLength.longValue(), MAX_INPUT_LENGTH.longValue());
+		}
+		return MAX_INPUT_LENGTH.longValue();
+	}
+
+	/**
+	 * Starts SENNA on the pending batch in the background and adds the
+	 * annotations of the batch started before, so SENNA processes the next chunk
+	 * of a large document while the annotations of the previous one are created.
+	 * At most two batches are held in memory.
+	 */
+	private void executeBatch() throws Exception {
+		final Batch batch = pendingBatch;
+		pendingBatch = null;
+		if (batch == null || batch.parts.isEmpty()) {
+			return;
+		}
+		final List<Document> sennaDocuments = new ArrayList<>();
+		for (BatchPart part : batch.parts) {
+			sennaDocuments.add(part.sennaDocument);
+		}
+		final SennaBuilder builder = createSennaBuilder();
+		final long timeout = documentTimeout != null && documentTimeout > 0 ? documentTimeout : 0;
+		batch.result = batchExecutor.submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				// the time left is only known once the batches before have finished
+				if (timeout > 0) {
+					builder.withExecutionTimeout(timeLeft(batch, timeout), TimeUnit.MILLISECONDS);
+				}
+				try {
+					builder.build().execute(sennaDocuments, new SentenceListener() {
+						@Override
+						public void sentenceCompleted(Sentence sentence) {
+							batch.completed.add(sentence);
+						}
+					});
+				} finally {
+					batch.completed.add(END_OF_BATCH);
+				}
+				return null;
+			}
+		});
+		try {
+			finishBatches();
+		} catch (Exception e) {
+			batch.result.cancel(true);
+			throw e;
+		}
+		runningBatch = batch;
+	}
+
+	/**
+	 * Adds the annotations of the running batch as SENNA completes its
+	 * sentences, until it has finished. The GATE documents are only changed on
+	 * this thread; the batch thread hands the sentences over in document order.
+	 */
+	private void finishBatches() throws Exception {
+		Batch batch = runningBatch;
+		if (batch == null) {
+			return;
+		}
+		// still running, so it is cancelled if this thread fails or is interrupted
+		Map<Document, BatchPart> parts = new IdentityHashMap<>();
+		for (BatchPart part : batch.parts) {
+			parts.put(part.sennaDocument, part);
+		}
+		Sentence sentence;
+		while ((sentence = batch.completed.take()) != END_OF_BATCH) {
+			addAnnotations(parts.get(sentence.getSennaDocument()), sentence);
+		}
+		try {
+			batch.result.get();
+		} catch (java.util.concurrent.ExecutionException e) {
+			throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+		} finally {
+			runningBatch = null;
+		}
+	}
+
+	/**
+	 * Adds the annotations of a sentence SENNA has completed. A failed or skipped
+	 * sentence has no SENNA tags, so it only gets its status as a feature.
+	 */
+	private void addAnnotations(BatchPart part, Sentence sentence) throws InvalidOffsetException {
+		if (sentence.getStatus() == SentenceStatus.COMPLETED) {
+			addAnnotations(part.documentOffset, part.gateDocument, sentence, part.outputAnnotationSet);
+		} else if (sentence.getDocumentId() != null) {
+			Annotation sentenceAnnotation = part.inputAnnotationSet.get((Integer) sentence.getDocumentId());
+			sentenceAnnotation.getFeatures().put(FEATURE_STATUS_NAME, sentence.getStatus().name());
+		} else {
+			part.gateDocument.getFeatures().put(FEATURE_STATUS_NAME, sentence.getStatus().name());
+		}
+	}
+
+	/**
+	 * @return the milliseconds the GATE documents of the batch have left, added
+	 *         up, at least 1; a document's time starts with its first chunk
+	 */
+	private static long timeLeft(Batch batch, long documentTimeout) {
+		long now = System.nanoTime();
+		long timeLeft = 0;
+		DocumentClock previous = null;
+		for (BatchPart part : batch.parts) {
+			DocumentClock clock = part.clock;
+			if (clock == previous) {
+				continue;
+			}
+			previous = clock;
+			if (!clock.started) {
+				clock.started = true;
+				clock.start = now;
+			}
+			timeLeft += Math.max(0, documentTimeout - TimeUnit.NANOSECONDS.toMillis(now - clock.start));
+		}
+		return Math.max(1, timeLeft);
+	}
+
+	private void cancelBatches() {
+		if (runningBatch != null) {
+			runningBatch.result.cancel(true);
+			runningBatch = null;
+		}
+		pendingBatch = null;
+	}
+
 	private List<Token> buildTokens(Long documentOffset, AnnotationSet inputAnnotationSet, Long sentenceStart,
 			Long sentenceEnd, boolean reuseAnnotations) {
 		List<Token> tokens = new ArrayList<>();
@@ -186,10 +521,20 @@ public class SennaAdapter extends AbstractLanguageAnalyser {
 		return tokens;
 	}
 
-	protected void executeSenna(Long documentOffset, final Document document, AnnotationSet outputAnnotationSet)
-			throws Exception {
-
+	protected SennaBuilder createSennaBuilder() throws IOException {
 		SennaBuilder builder = new SennaBuilder(fileFromURL(executableFile), parallelProcesses);
+		// a stream would load the model again for every window
+		if ((persistentProcesses != null && persistentProcesses) || isStreaming()) {
+			sennaPools.limitProcesses(this, maxProcesses != null ? maxProcesses : 0);
+			builder.withPools(sennaPools);
+		}
+		builder.withResultCache(getResultCache());
+		if (sentenceTimeout != null && sentenceTimeout > 0) {
+			builder.withSentenceTimeout(sentenceTimeout, TimeUnit.MILLISECONDS);
+		}
+		if (timeoutPolicy != null) {
+			builder.withTimeoutPolicy(timeoutPolicy);
+		}
 		builder.withIobTags(iobTags);
 		builder.withBracketTags(bracketTags);
 		builder.withUserTokens(hasValue(inputTokenType));
@@ -209,35 +554,60 @@ public class SennaAdapter extends AbstractLanguageAnalyser {
 		builder.parseSrl(outputSRLAnnotations);
 		builder.parsePsg(outputPSGAnnotations);
 
-		Senna process = builder.build();
-		process.execute(document);
+		return builder;
+	}
+
+	private ResultCache getResultCache() throws IOException {
+		long maxSize = resultCacheSize != null && resultCacheSize > 0 ? resultCacheSize * 1024L * 1024L : 0;
+		File directory = resultCacheDirectory != null ? fileFromURL(resultCacheDirectory) : null;
+		if (directory == null && maxSize == 0) {
+			closeResultCache();
+		} else if (resultCache == null || resultCache.getMaxSize() != maxSize
+				|| !equals(directory, resultCacheFile)) {
+			closeResultCache();
+			resultCache = directory != null ? new DiskResultCache(directory, maxSize) : new ResultCache(maxSize);
+			resultCacheFile = directory;
+		}
+		return resultCache;
+	}
 
-		addAnnotations(documentOffset, document, outputAnnotationSet);
-		addAnnotations(documentOffset, document, outputAnnotationSet, CHK, ANNOTATION_CHK_NAME,
+	private void closeResultCache() {
+		if (resultCache instanceof DiskResultCache) {
+			try {
+				((DiskResultCache) resultCache).close();
+			} catch (IOException e) {
+				// the files stay consistent, nothing to recover
+			}
+		}
+		resultCache = null;
+		resultCacheFile = null;
+	}
+
+	protected void addAnnotations(Long documentOffset, gate.Document gateDocument, Sentence sentence,
+			AnnotationSet outputAnnotationSet) throws InvalidOffsetException {
+		addAnnotations(documentOffset, sentence, outputAnnotationSet);
+		addAnnotations(documentOffset, sentence, outputAnnotationSet, CHK, ANNOTATION_CHK_NAME,
 				ANNOTATION_CHK_FEATURE_NAME);
-		addAnnotations(documentOffset, document, outputAnnotationSet, NER, ANNOTATION_NER_NAME,
+		addAnnotations(documentOffset, sentence, outputAnnotationSet, NER, ANNOTATION_NER_NAME,
 				ANNOTATION_NER_FEATURE_NAME);
-		addSrlAnnotations(documentOffset, document, outputAnnotationSet);
-		addPsgAnnotations(documentOffset, document, outputAnnotationSet);
-
+		addSrlAnnotations(documentOffset, gateDocument, sentence, outputAnnotationSet);
+		addPsgAnnotations(documentOffset, sentence, outputAnnotationSet);
 	}
 
-	protected void addAnnotations(Long documentOffset, Document document, AnnotationSet outputAnnotationSet)
+	protected void addAnnotations(Long documentOffset, Sentence sentence, AnnotationSet outputAnnotationSet)
 			throws InvalidOffsetException {
-		for (Sentence sentence : document.getSentences()) {
-			for (Token token : sentence.getTokens()) {
-				FeatureMap map = extractFeaturesToMap(token);
-				Annotation annotation = null;
-				if (token.getDocumentId() != null) {
-					annotation = outputAnnotationSet.get((Integer) token.getDocumentId());
-					annotation.getFeatures().putAll(map);
-				} else {
-					Long start = documentOffset
-							+ (token.getDocumentStart() != null ? token.getDocumentStart() : token.getSennaStart());
-					Long end = documentOffset
-							+ (token.getDocumentEnd() != null ? token.getDocumentEnd() : token.getSennaEnd());
-					outputAnnotationSet.add(start, end, ANNOTATION_TOKEN_NAME, map);
-				}
+		for (Token token : sentence.getTokens()) {
+			FeatureMap map = extractFeaturesToMap(token);
+			Annotation annotation = null;
+			if (token.getDocumentId() != null) {
+				annotation = outputAnnotationSet.get((Integer) token.getDocumentId());
+				annotation.getFeatures().putAll(map);
+			} else {
+				Long start = documentOffset
+						+ (token.getDocumentStart() != null ? token.getDocumentStart() : token.getSennaStart());
+				Long end = documentOffset
+						+ (token.getDocumentEnd() != null ? token.getDocumentEnd() : token.getSennaEnd());
+				outputAnnotationSet.add(start, end, ANNOTATION_TOKEN_NAME, map);
 			}
 		}
 	}
@@ -266,64 +636,58 @@ public class SennaAdapter extends AbstractLanguageAnalyser {
 		return map;
 	}
 
-	protected void addAnnotations(Long documentOffset, Document document, AnnotationSet outputAnnotationSet,
+	protected void addAnnotations(Long documentOffset, Sentence sentence, AnnotationSet outputAnnotationSet,
 			Option<? extends MultiToken> option, String annotationName, String featureName)
 			throws InvalidOffsetException {
-		for (Sentence sentence : document.getSentences()) {
-			for (MultiToken token : sentence.getMultiTokens(option)) {
-				FeatureMap features = Factory.newFeatureMap();
-				features.put(featureName, token.getType());
-				outputAnnotationSet.add(documentOffset + token.getDocumentStart(),
-						documentOffset + token.getDocumentEnd(), annotationName, features);
-			}
+		for (MultiToken token : sentence.getMultiTokens(option)) {
+			FeatureMap features = Factory.newFeatureMap();
+			features.put(featureName, token.getType());
+			outputAnnotationSet.add(documentOffset + token.getDocumentStart(),
+					documentOffset + token.getDocumentEnd(), annotationName, features);
 		}
 	}
 
-	protected void addSrlAnnotations(Long documentOffset, Document document, AnnotationSet outputAnnotationSet)
-			throws InvalidOffsetException {
-		for (Sentence sentence : document.getSentences()) {
-			for (SrlVerbToken verb : sentence.getMultiTokens(SRL)) {
-				List<Integer> relationIds = new ArrayList<>();
-
-				DocumentContent verbText = this.document.getContent()
-						.getContent(documentOffset + verb.getDocumentStart(), documentOffset + verb.getDocumentEnd());
-
-				FeatureMap verbFeatures = Factory.newFeatureMap();
-				verbFeatures.put(ANNOTATION_SRL_FEATURE_TYPE_NAME, verb.getType());
-				verbFeatures.put(ANNOTATION_SRL_FEATURE_VERB_NAME, verbText);
-
-				for (SrlArgumentToken argument : verb.getArguments()) {
-					DocumentContent argumentText = this.document.getContent().getContent(
-							documentOffset + argument.getDocumentStart(), documentOffset + argument.getDocumentEnd());
-					if (verbFeatures.get(argument.getType()) != null) {
-						verbFeatures.put(argument.getType(), verbFeatures.get(argument.getType())
-								+ ANNOTATION_SRL_FEATURE_ARGUMENT_JOIN + argumentText);
-					} else {
-						verbFeatures.put(argument.getType(), argumentText);
-					}
-					FeatureMap features = Factory.newFeatureMap();
-					features.put(ANNOTATION_SRL_FEATURE_TYPE_NAME, argument.getType());
-					features.put(ANNOTATION_SRL_FEATURE_VERB_NAME, verbText);
-					Integer argumentId = outputAnnotationSet.add(documentOffset + argument.getDocumentStart(),
-							documentOffset + argument.getDocumentEnd(), ANNOTATION_SRL_NAME, features);
-					relationIds.add(argumentId);
-				}
+	protected void addSrlAnnotations(Long documentOffset, gate.Document gateDocument, Sentence sentence,
+			AnnotationSet outputAnnotationSet) throws InvalidOffsetException {
+		for (SrlVerbToken verb : sentence.getMultiTokens(SRL)) {
+			List<Integer> relationIds = new ArrayList<>();
+
+			DocumentContent verbText = gateDocument.getContent()
+					.getContent(documentOffset + verb.getDocumentStart(), documentOffset + verb.getDocumentEnd());
 
-				Integer verbId = outputAnnotationSet.add(documentOffset + verb.getDocumentStart(),
-						documentOffset + verb.getDocumentEnd(), ANNOTATION_SRL_NAME, verbFeatures);
-				if (!relationIds.isEmpty()) {
-					relationIds.add(0, verbId);
-					outputAnnotationSet.getRelations().addRelation(RELATION_SRL_NAME, toIntArray(relationIds));
+			FeatureMap verbFeatures = Factory.newFeatureMap();
+			verbFeatures.put(ANNOTATION_SRL_FEATURE_TYPE_NAME, verb.getType());
+			verbFeatures.put(ANNOTATION_SRL_FEATURE_VERB_NAME, verbText);
+
+			for (SrlArgumentToken argument : verb.getArguments()) {
+				DocumentContent argumentText = gateDocument.getContent().getContent(
+						documentOffset + argument.getDocumentStart(), documentOffset + argument.getDocumentEnd());
+				if (verbFeatures.get(argument.getType()) != null) {
+					verbFeatures.put(argument.getType(), verbFeatures.get(argument.getType())
+							+ ANNOTATION_SRL_FEATURE_ARGUMENT_JOIN + argumentText);
+				} else {
+					verbFeatures.put(argument.getType(), argumentText);
 				}
+				FeatureMap features = Factory.newFeatureMap();
+				features.put(ANNOTATION_SRL_FEATURE_TYPE_NAME, argument.getType());
+				features.put(ANNOTATION_SRL_FEATURE_VERB_NAME, verbText);
+				Integer argumentId = outputAnnotationSet.add(documentOffset + argument.getDocumentStart(),
+						documentOffset + argument.getDocumentEnd(), ANNOTATION_SRL_NAME, features);
+				relationIds.add(argumentId);
+			}
+
+			Integer verbId = outputAnnotationSet.add(documentOffset + verb.getDocumentStart(),
+					documentOffset + verb.getDocumentEnd(), ANNOTATION_SRL_NAME, verbFeatures);
+			if (!relationIds.isEmpty()) {
+				relationIds.add(0, verbId);
+				outputAnnotationSet.getRelations().addRelation(RELATION_SRL_NAME, toIntArray(relationIds));
 			}
 		}
 	}
 
-	protected void addPsgAnnotations(Long documentOffset, Document document, AnnotationSet outputAnnotationSet)
+	protected void addPsgAnnotations(Long documentOffset, Sentence sentence, AnnotationSet outputAnnotationSet)
 			throws InvalidOffsetException {
-		for (Sentence sentence : document.getSentences()) {
-			addPsgAnnotations(null, sentence.getMultiTokens(PSG), outputAnnotationSet, documentOffset);
-		}
+		addPsgAnnotations(null, sentence.getMultiTokens(PSG), outputAnnotationSet, documentOffset);
 	}
 
 	protected List<Integer> addPsgAnnotations(Integer parentId, List<PsgToken> tokens,
@@ -374,7 +738,7 @@ public class SennaAdapter extends AbstractLanguageAnalyser {
 
 	@Optional
 	@RunTime
-	@CreoleParameter(comment = "Run # senna processes in parallel", defaultValue = "1")
+	@CreoleParameter(comment = "Run # senna processes in parallel, 0 to choose from the CPUs and memory of the container", defaultValue = "1")
 	public void setParallelProcesses(Integer parallelProcesses) {
 		this.parallelProcesses = parallelProcesses;
 	}
@@ -383,6 +747,149 @@ public class SennaAdapter extends AbstractLanguageAnalyser {
 		return parallelProcesses;
 	}
 
+	@Optional
+	@RunTime
+	@CreoleParameter(comment = "Keep senna processes running between documents instead of loading the model for every document", defaultValue = "true")
+	public void setPersistentProcesses(Boolean persistentProcesses) {
+		this.persistentProcesses = persistentProcesses;
+	}
+
+	public Boolean getPersistentProcesses() {
+		return persistentProcesses;
+	}
+
+	@Optional
+	@RunTime
+	@CreoleParameter(comment = "Maximum number of persistent senna processes of all SennaAdapters in this JVM, e.g. the copies running in other threads, 0 for no limit. Processes are handed out fairly between the copies. If copies set different limits, the smallest of the copies still in use applies.", defaultValue = "0")
+	public void setMaxProcesses(Integer maxProcesses) {
+		this.maxProcesses = maxProcesses;
+	}
+
+	public Integer getMaxProcesses() {
+		return maxProcesses;
+	}
+
+	@Optional
+	@RunTime
+	@CreoleParameter(comment = "Collect sentences of several documents of a corpus until # sentences are reached and run them through senna together, 0 to run each document on its own. Annotations are added when the batch is executed, so later PRs of the pipeline do not see them. Not used for corpora stored in a datastore.", defaultValue = "0")
+	public void setBatchSentences(Integer batchSentences) {
+		this.batchSentences = batchSentences;
+	}
+
+	public Integer getBatchSentences() {
+		return batchSentences;
+	}
+
+	@Optional
+	@RunTime
+	@CreoleParameter(comment = "Maximum number of characters of a batch of documents", defaultValue = "1000000")
+	public void setBatchLength(Integer batchLength) {
+		this.batchLength = batchLength;
+	}
+
+	public Integer getBatchLength() {
+		return batchLength;
+	}
+
+	@Optional
+	@RunTime
+	@CreoleParameter(comment = "Split documents into chunks of at most # characters, which are run through senna one after the other while the annotations of the previous chunk are added, 0 for no limit", defaultValue = "1000000")
+	public void setChunkLength(Integer chunkLength) {
+		this.chunkLength = chunkLength;
+	}
+
+	public Integer getChunkLength() {
+		return chunkLength;
+	}
+
+	@Optional
+	@RunTime
+	@CreoleParameter(comment = "Split documents into chunks of at most # sentences, 0 for no limit", defaultValue = "10000")
+	public void setChunkSentences(Integer chunkSentences) {
+		this.chunkSentences = chunkSentences;
+	}
+
+	public Integer getChunkSentences() {
+		return chunkSentences;
+	}
+
+	@Optional
+	@RunTime
+	@CreoleParameter(comment = "Stream documents through persistent senna processes in windows of # sentences, which are created from the sentence annotations when needed and released once their annotations are added, so memory does not grow with the document size. Documents are not batched while streaming, and a verbsFile cannot be used. 0 to use the chunk limits.", defaultValue = "0")
+	public void setStreamingWindow(Integer streamingWindow) {
+		this.streamingWindow = streamingWindow;
+	}
+
+	public Integer getStreamingWindow() {
+		return streamingWindow;
+	}
+
+	@Optional
+	@RunTime
+	@CreoleParameter(comment = "Keep offsets and tags of SENNA tokens in compact arrays until the annotations are created, which saves memory for large documents and batches", defaultValue = "false")
+	public void setCompactTokens(Boolean compactTokens) {
+		this.compactTokens = compactTokens;
+	}
+
+	public Boolean getCompactTokens() {
+		return compactTokens;
+	}
+
+	@Optional
+	@RunTime
+	@CreoleParameter(comment = "Keep the SENNA results of recently seen sentences in a cache of at most # MB, so repeated sentences are not sent to senna again, 0 to disable", defaultValue = "0")
+	public void setResultCacheSize(Integer resultCacheSize) {
+		this.resultCacheSize = resultCacheSize;
+	}
+
+	public Integer getResultCacheSize() {
+		return resultCacheSize;
+	}
+
+	@Optional
+	@RunTime
+	@CreoleParameter(comment = "Directory keeping the SENNA results of all processed sentences, so later runs and other processes using the same directory skip sentences they have already seen")
+	public void setResultCacheDirectory(URL resultCacheDirectory) {
+		this.resultCacheDirectory = resultCacheDirectory;
+	}
+
+	public URL getResultCacheDirectory() {
+		return resultCacheDirectory;
+	}
+
+	@Optional
+	@RunTime
+	@CreoleParameter(comment = "Maximum # milliseconds senna may take for a document, counted from the start of its first chunk, so all its chunks share it. Batched documents share the time left to all of them. 0 for no limit", defaultValue = "0")
+	public void setDocumentTimeout(Integer documentTimeout) {
+		this.documentTimeout = documentTimeout;
+	}
+
+	public Integer getDocumentTimeout() {
+		return documentTimeout;
+	}
+
+	@Optional
+	@RunTime
+	@CreoleParameter(comment = "Maximum # milliseconds a senna process may take for a sentence, including loading its model, 0 for no limit", defaultValue = "0")
+	public void setSentenceTimeout(Integer sentenceTimeout) {
+		this.sentenceTimeout = sentenceTimeout;
+	}
+
+	public Integer getSentenceTimeout() {
+		return sentenceTimeout;
+	}
+
+	@Optional
+	@RunTime
+	@CreoleParameter(comment = "When a timeout has passed: FAIL the document, SKIP sentences that are too slow, or add the annotations of the sentences completed so far (PARTIAL)", defaultValue = "FAIL")
+	public void setTimeoutPolicy(TimeoutPolicy timeoutPolicy) {
+		this.timeoutPolicy = timeoutPolicy;
+	}
+
+	public TimeoutPolicy getTimeoutPolicy() {
+		return timeoutPolicy;
+	}
+
 	@Optional
 	@RunTime
 	@CreoleParameter(comment = "Output IOB tags instead of IOBES.", defaultValue = "false")
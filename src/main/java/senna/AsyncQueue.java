@@ -0,0 +1,184 @@
+package senna;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import senna.mapping.Document;
+import senna.mapping.Sentence;
+import senna.mapping.SentenceListener;
+
+/**
+ * Documents passed to {@link Senna#executeAsync}. A single task on the given
+ * executor takes the queued documents in batches of up to
+ * {@link #MAX_BATCH_SENTENCES} sentences and executes each batch like
+ * {@link Senna#execute(List, SentenceListener)}, so callers neither block nor
+ * need a thread per document in flight.
+ */
+class AsyncQueue {
+
+	static final int MAX_BATCH_SENTENCES = 10000;
+
+	private final Senna senna;
+	private final ExecutorService executor;
+
+	private final Deque<Entry> entries = new ArrayDeque<>();
+	private boolean draining;
+
+	AsyncQueue(Senna senna, ExecutorService executor) {
+		this.senna = senna;
+		this.executor = executor;
+	}
+
+	CompletableFuture<Document> add(Document document, SentenceListener listener) {
+		Entry entry = new Entry(document, listener);
+		synchronized (this) {
+			entries.add(entry);
+			if (draining) {
+				return entry.future;
+			}
+			draining = true;
+		}
+		try {
+			executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					drain();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			failQueued(e);
+		}
+		return entry.future;
+	}
+
+	private void drain() {
+		List<Entry> batch = Collections.emptyList();
+		try {
+			while (true) {
+				batch = new ArrayList<>();
+				Set<Document> documents = Collections.newSetFromMap(new IdentityHashMap<Document, Boolean>());
+				synchronized (this) {
+					int sentences = 0;
+					while (!entries.isEmpty() && (batch.isEmpty()
+							|| sentences + entries.peek().document.getSentences().size() <= MAX_BATCH_SENTENCES)) {
+						// a document passed again waits for the next batch
+						if (documents.contains(entries.peek().document)) {
+							break;
+						}
+						Entry entry = entries.poll();
+						// cancelled while queued
+						if (!entry.future.isDone()) {
+							batch.add(entry);
+							documents.add(entry.document);
+							sentences += entry.document.getSentences().size();
+						}
+					}
+					if (batch.isEmpty()) {
+						draining = false;
+						return;
+					}
+				}
+				try {
+					execute(batch);
+				} catch (InterruptedException e) {
+					fail(batch, e);
+					failQueued(e);
+					return;
+				}
+			}
+		} catch (RuntimeException | Error e) {
+			// e.g. an Error thrown by a listener; later documents must not wait for this task
+			fail(batch, e);
+			failQueued(e);
+			throw e;
+		}
+	}
+
+	private void execute(List<Entry> batch) throws InterruptedException {
+		List<Document> documents = new ArrayList<>();
+		final Map<Document, Entry> entriesByDocument = new IdentityHashMap<>();
+		for (Entry entry : batch) {
+			if (entry.remaining == 0) {
+				entry.future.complete(entry.document);
+			} else {
+				documents.add(entry.document);
+				entriesByDocument.put(entry.document, entry);
+			}
+		}
+		if (documents.isEmpty()) {
+			return;
+		}
+		try {
+			senna.execute(documents, new SentenceListener() {
+				@Override
+				public void sentenceCompleted(Sentence sentence) {
+					Entry entry = entriesByDocument.get(sentence.getSennaDocument());
+					entry.sentenceCompleted(sentence);
+				}
+			});
+		} catch (ExecutionException e) {
+			fail(batch, e.getCause());
+		} catch (RuntimeException | IOException e) {
+			fail(batch, e);
+		}
+	}
+
+	private static void fail(List<Entry> batch, Throwable throwable) {
+		for (Entry entry : batch) {
+			entry.future.completeExceptionally(throwable);
+		}
+	}
+
+	private void failQueued(Throwable throwable) {
+		List<Entry> queued;
+		synchronized (this) {
+			queued = new ArrayList<>(entries);
+			entries.clear();
+			draining = false;
+		}
+		fail(queued, throwable);
+	}
+
+	private static class Entry {
+		private final Document document;
+		private final SentenceListener listener;
+		private final CompletableFuture<Document> future = new CompletableFuture<>();
+		private int remaining;
+
+		private Entry(Document document, SentenceListener listener) {
+			this.document = document;
+			this.listener = listener;
+			this.remaining = document.getSentences().size();
+		}
+
+		private void sentenceCompleted(Sentence sentence) {
+			if (future.isDone()) {
+				// cancelled or failed by its listener, the other documents go on
+				return;
+			}
+			try {
+				if (listener != null) {
+					listener.sentenceCompleted(sentence);
+				}
+			} catch (RuntimeException e) {
+				future.completeExceptionally(e);
+				return;
+			}
+			if (--remaining == 0) {
+				future.complete(document);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,17 @@
+package senna;
+
+import java.util.Collection;
+
+import senna.mapping.MultiToken;
+import senna.mapping.Sentence;
+
+/**
+ * Estimates the relative time SENNA needs for a sentence, used to cut documents
+ * into parts of similar cost instead of similar sentence count. Sentences have
+ * their SENNA text and offsets calculated when they are estimated.
+ */
+public interface CostEstimator {
+
+	double estimate(Sentence sentence, Collection<Option<? extends MultiToken>> options);
+
+}
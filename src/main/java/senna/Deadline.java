@@ -0,0 +1,158 @@
+package senna;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The time limits of one execution. When the execution is stopped, the
+ * processes working on it are destroyed and the thread waiting for its
+ * sentences is woken. Threads change sentences only within
+ * {@link #enter()}/{@link #exit()} or {@link #watch}/{@link #unwatch}, so the
+ * sentences can be handed back once the threads working in them have left.
+ */
+class Deadline {
+
+	private final long start = System.nanoTime();
+	private final long documentTimeout;
+	private final long sentenceTimeout;
+	private final TimeoutPolicy policy;
+
+	private final List<SentenceDispatcher> dispatchers = new ArrayList<>();
+	private final Set<Runnable> kills = Collections.newSetFromMap(new IdentityHashMap<Runnable, Boolean>());
+	private int writers;
+	private volatile boolean stopped;
+	private TimeoutException timeout;
+
+	/**
+	 * @param documentTimeout
+	 *            nanoseconds, 0 for no limit
+	 * @param sentenceTimeout
+	 *            nanoseconds, 0 for no limit
+	 */
+	Deadline(long documentTimeout, long sentenceTimeout, TimeoutPolicy policy) {
+		this.documentTimeout = documentTimeout;
+		this.sentenceTimeout = sentenceTimeout;
+		this.policy = policy;
+	}
+
+	boolean isLimited() {
+		return documentTimeout > 0 || sentenceTimeout > 0;
+	}
+
+	/**
+	 * @return nanoseconds left until the document timeout, Long.MAX_VALUE if
+	 *         there is none
+	 */
+	long remainingNanos() {
+		return documentTimeout > 0 ? documentTimeout - (System.nanoTime() - start) : Long.MAX_VALUE;
+	}
+
+	long getSentenceTimeout() {
+		return sentenceTimeout;
+	}
+
+	TimeoutPolicy getPolicy() {
+		return policy;
+	}
+
+	boolean isStopped() {
+		return stopped;
+	}
+
+	synchronized TimeoutException getTimeout() {
+		return timeout;
+	}
+
+	/**
+	 * @return true for the first dispatcher, which hands the sentences back to
+	 *         the caller; the others belong to task groups
+	 */
+	synchronized boolean register(SentenceDispatcher dispatcher) {
+		dispatchers.add(dispatcher);
+		return dispatchers.size() == 1;
+	}
+
+	/**
+	 * @return false if the execution has been stopped, so the sentences must not
+	 *         be changed
+	 */
+	synchronized boolean enter() {
+		if (stopped) {
+			return false;
+		}
+		writers++;
+		return true;
+	}
+
+	synchronized void exit() {
+		if (--writers == 0) {
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Enters for a process that is destroyed by the given kill when the
+	 * execution is stopped.
+	 *
+	 * @return false if the execution has been stopped, so the process must not
+	 *         be used
+	 */
+	boolean watch(Runnable kill) {
+		if (!isLimited()) {
+			return true;
+		}
+		synchronized (this) {
+			if (!enter()) {
+				return false;
+			}
+			kills.add(kill);
+			return true;
+		}
+	}
+
+	void unwatch(Runnable kill) {
+		if (!isLimited()) {
+			return;
+		}
+		synchronized (this) {
+			kills.remove(kill);
+			exit();
+		}
+	}
+
+	/**
+	 * Stops the execution, unless it has been stopped before.
+	 */
+	void stop(TimeoutException reason) {
+		List<SentenceDispatcher> waiting;
+		synchronized (this) {
+			if (stopped) {
+				return;
+			}
+			stopped = true;
+			timeout = reason;
+			for (Runnable kill : kills) {
+				kill.run();
+			}
+			waiting = new ArrayList<>(dispatchers);
+		}
+		for (SentenceDispatcher dispatcher : waiting) {
+			dispatcher.wake();
+		}
+	}
+
+	/**
+	 * Waits for the threads changing sentences to leave, after the execution
+	 * has been stopped.
+	 */
+	synchronized void awaitWriters() throws InterruptedException {
+		while (writers > 0) {
+			wait();
+		}
+	}
+
+}
@@ -0,0 +1,103 @@
+package senna;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import senna.mapping.Sentence;
+import senna.mapping.SentenceResult;
+
+/**
+ * {@link ResultCache} that also keeps all results in a directory, so they are
+ * reused by later runs and by other JVMs on the same host using the same
+ * directory. Results missing in memory are looked up on disk and new results
+ * are written to disk once per executed document. Recently used results are
+ * kept in memory up to the given size.
+ */
+public class DiskResultCache extends ResultCache implements Closeable {
+
+	private final ResultStore store;
+	private long diskHits;
+	private long diskMisses;
+
+	/**
+	 * @param maxSize
+	 *            approximate maximum number of bytes of the results kept in
+	 *            memory
+	 */
+	public DiskResultCache(File directory, long maxSize) throws IOException {
+		super(maxSize);
+		this.store = new ResultStore(directory);
+	}
+
+	@Override
+	protected SentenceResult get(List<String> command, Sentence sentence) throws IOException {
+		SentenceResult result = super.get(command, sentence);
+		if (result != null) {
+			return result;
+		}
+		result = store.read(command, sentence);
+		synchronized (this) {
+			if (result != null) {
+				diskHits++;
+			} else {
+				diskMisses++;
+			}
+		}
+		if (result != null) {
+			super.put(command, sentence, result);
+		}
+		return result;
+	}
+
+	@Override
+	protected void putAll(List<String> command, List<Sentence> sentences) throws IOException {
+		List<Sentence> completed = new ArrayList<>();
+		List<SentenceResult> results = new ArrayList<>();
+		for (Sentence sentence : sentences) {
+			if (isCacheable(sentence)) {
+				SentenceResult result = SentenceResult.capture(sentence);
+				put(command, sentence, result);
+				completed.add(sentence);
+				results.add(result);
+			}
+		}
+		store.write(command, completed, results);
+	}
+
+	/**
+	 * Rewrites the data file without the records of duplicate or unfinished
+	 * writes. Other JVMs using the directory switch to the new file on their next
+	 * lookup.
+	 */
+	public void compact() throws IOException {
+		store.compact();
+	}
+
+	public synchronized long getDiskHitCount() {
+		return diskHits;
+	}
+
+	public synchronized long getDiskMissCount() {
+		return diskMisses;
+	}
+
+	public int getDiskEntryCount() throws IOException {
+		return store.getEntryCount();
+	}
+
+	/**
+	 * @return the number of bytes of the data file
+	 */
+	public long getDiskSize() throws IOException {
+		return store.getDataSize();
+	}
+
+	@Override
+	public void close() throws IOException {
+		store.close();
+	}
+
+}
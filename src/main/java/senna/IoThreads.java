@@ -0,0 +1,40 @@
+package senna;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Daemon threads shared by all {@link Senna} instances and workers, which pump
+ * the STDIN and STDERR streams of the SENNA processes and run the tasks of a
+ * {@link Senna} built without an executor. Threads are reused across processes
+ * and end after being idle for a while, so the executor is never shut down and
+ * does not keep the JVM alive.
+ */
+final class IoThreads {
+
+	static final long KEEP_ALIVE_SECONDS = 30;
+
+	private static final ExecutorService EXECUTOR = new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+			KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "senna-io-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	private IoThreads() {
+	}
+
+	static ExecutorService executor() {
+		return EXECUTOR;
+	}
+
+}
@@ -0,0 +1,193 @@
+package senna;
+
+import java.util.List;
+
+import senna.mapping.DocumentSlice;
+import senna.mapping.Sentence;
+import senna.mapping.SentenceListener;
+import senna.mapping.SentenceResult;
+import senna.mapping.SubDocument;
+
+/**
+ * A part of a document executed by its own SENNA process in parallel with the
+ * other parts. The sentences parsed so far are counted, so that a part which
+ * has fallen far behind the others when one of them finishes can be raced by a
+ * speculative process on a copy of its remaining sentences. The process that
+ * finishes first is kept and the other one is destroyed.
+ */
+class Partition {
+
+	// a part is a straggler if its share of parsed sentences is this far below the average
+	private static final double STRAGGLER_GAP = 0.2;
+
+	private final DocumentSlice slice;
+	private final SentenceListener parsed;
+	private final Attempt primary = new Attempt(false);
+
+	private Attempt speculative;
+	private SubDocument speculativeCopy;
+	private int speculativeStart;
+	private int completed;
+	private boolean finished;
+	private boolean superseded;
+
+	Partition(DocumentSlice slice, SentenceListener parsed) {
+		this.slice = slice;
+		this.parsed = parsed;
+	}
+
+	DocumentSlice getSlice() {
+		return slice;
+	}
+
+	Attempt getPrimary() {
+		return primary;
+	}
+
+	/**
+	 * @return the listener of the primary process, which counts its sentences
+	 */
+	SentenceListener primaryListener() {
+		return new SentenceListener() {
+			@Override
+			public void sentenceCompleted(Sentence sentence) {
+				synchronized (Partition.this) {
+					// a destroyed process ends its output early
+					if (superseded) {
+						return;
+					}
+					completed++;
+				}
+				parsed.sentenceCompleted(sentence);
+			}
+		};
+	}
+
+	/**
+	 * Called by the primary when its process has ended. If a speculative process
+	 * finished first, its results are copied into the sentences the primary has
+	 * not completed.
+	 *
+	 * @return true if the primary lost the race, so its errors do not count
+	 */
+	boolean primaryEnded() {
+		synchronized (this) {
+			finished = true;
+			if (!superseded) {
+				if (speculative != null) {
+					speculative.kill();
+				}
+				return false;
+			}
+		}
+		List<Sentence> sentences = slice.getSentences();
+		List<Sentence> copies = speculativeCopy.getSentences();
+		for (int i = completed; i < sentences.size(); i++) {
+			Sentence sentence = sentences.get(i);
+			SentenceResult.capture(copies.get(i - speculativeStart)).replace(sentence);
+			parsed.sentenceCompleted(sentence);
+		}
+		return true;
+	}
+
+	/**
+	 * @return the speculative attempt on a copy of the remaining sentences, null
+	 *         if the part has finished or is already raced
+	 */
+	synchronized Attempt startSpeculation() {
+		List<Sentence> sentences = slice.getSentences();
+		if (finished || speculative != null || !primary.isStarted() || completed == sentences.size()) {
+			return null;
+		}
+		speculativeStart = completed;
+		speculativeCopy = new SubDocument(slice.getDocument(), sentences.subList(completed, sentences.size()));
+		speculative = new Attempt(true);
+		return speculative;
+	}
+
+	synchronized DocumentSlice getSpeculativeSlice() {
+		return new DocumentSlice(speculativeCopy);
+	}
+
+	/**
+	 * Called when the speculative process has ended, which destroys the primary
+	 * process if the speculative one completed all sentences first.
+	 */
+	void speculationEnded() {
+		synchronized (this) {
+			if (finished || !speculative.succeeded()) {
+				return;
+			}
+			superseded = true;
+		}
+		primary.kill();
+	}
+
+	synchronized double getProgress() {
+		return finished ? 1 : (double) completed / slice.getSentences().size();
+	}
+
+	/**
+	 * @return the part furthest behind, if it is far behind the average
+	 */
+	static Partition findStraggler(List<Partition> partitions) {
+		Partition straggler = null;
+		double lowest = 1;
+		double total = 0;
+		for (Partition partition : partitions) {
+			double progress = partition.getProgress();
+			total += progress;
+			if (progress < lowest) {
+				straggler = partition;
+				lowest = progress;
+			}
+		}
+		return straggler != null && lowest < total / partitions.size() - STRAGGLER_GAP ? straggler : null;
+	}
+
+	/**
+	 * A process executing the sentences of a part, which may be destroyed when it
+	 * loses the race.
+	 */
+	static class Attempt {
+
+		private final boolean speculative;
+		private Process process;
+		private boolean killed;
+
+		private Attempt(boolean speculative) {
+			this.speculative = speculative;
+		}
+
+		synchronized void started(Process process) {
+			this.process = process;
+			if (killed) {
+				process.destroy();
+			}
+		}
+
+		synchronized boolean isStarted() {
+			return process != null;
+		}
+
+		synchronized void kill() {
+			killed = true;
+			if (process != null) {
+				process.destroy();
+			}
+		}
+
+		/**
+		 * @return true if a failure of this attempt does not fail the execution
+		 */
+		synchronized boolean isExpendable() {
+			return speculative || killed;
+		}
+
+		synchronized boolean succeeded() {
+			return process != null && !killed && !process.isAlive() && process.exitValue() == 0;
+		}
+
+	}
+
+}
@@ -0,0 +1,85 @@
+package senna;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chooses the number of SENNA processes for a {@link Senna} built with
+ * {@link SennaBuilder#AUTO_PROCESSES}: one per available CPU, as long as the
+ * processes fit into the memory left by the JVM and the other processes of the
+ * container. The resident memory of a SENNA process is measured once it has
+ * loaded its model, and the count is chosen again on every build, so it follows
+ * the memory actually used.
+ */
+final class ProcessSizer {
+
+	/**
+	 * Memory assumed for a SENNA process until one has been measured.
+	 */
+	static final long DEFAULT_PROCESS_MEMORY = 512L * 1024 * 1024;
+
+	// share of the memory limit kept free for the page cache and short peaks
+	private static final double HEADROOM = 0.1;
+
+	private static final Map<List<String>, Long> processMemory = new HashMap<>();
+	private static final Map<List<String>, Integer> runningProcesses = new HashMap<>();
+
+	private ProcessSizer() {
+	}
+
+	static int processes(List<String> command) {
+		long perProcess = getProcessMemory(command);
+		long limit = SystemResources.memoryLimit();
+		int cpus = SystemResources.availableCpus();
+		if (limit <= 0) {
+			return cpus;
+		}
+		// the usage includes the processes of this command already running, which are counted in the result
+		long otherUsage = Math.max(0, SystemResources.memoryUsage() - getRunningProcesses(command) * perProcess);
+		Runtime runtime = Runtime.getRuntime();
+		long heapGrowth = runtime.maxMemory() != Long.MAX_VALUE ? runtime.maxMemory() - runtime.totalMemory() : 0;
+		long budget = limit - otherUsage - heapGrowth - (long) (limit * HEADROOM);
+		return (int) Math.max(1, Math.min(cpus, budget / perProcess));
+	}
+
+	static synchronized long getProcessMemory(List<String> command) {
+		Long memory = processMemory.get(command);
+		return memory != null ? memory : DEFAULT_PROCESS_MEMORY;
+	}
+
+	/**
+	 * Records the resident memory of a SENNA process that has loaded its model.
+	 */
+	static void measure(List<String> command, Process process) {
+		long memory = SystemResources.residentMemory(process);
+		if (memory > 0) {
+			synchronized (ProcessSizer.class) {
+				Long previous = processMemory.get(command);
+				if (previous == null || memory > previous) {
+					processMemory.put(new ArrayList<>(command), memory);
+				}
+			}
+		}
+	}
+
+	static synchronized int getRunningProcesses(List<String> command) {
+		Integer running = runningProcesses.get(command);
+		return running != null ? running : 0;
+	}
+
+	static synchronized void processStarted(List<String> command) {
+		runningProcesses.put(new ArrayList<>(command), getRunningProcesses(command) + 1);
+	}
+
+	static synchronized void processStopped(List<String> command) {
+		int running = getRunningProcesses(command) - 1;
+		if (running > 0) {
+			runningProcesses.put(new ArrayList<>(command), running);
+		} else {
+			runningProcesses.remove(command);
+		}
+	}
+
+}
@@ -0,0 +1,163 @@
+package senna;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import senna.mapping.Sentence;
+import senna.mapping.SentenceResult;
+import senna.mapping.SentenceStatus;
+
+/**
+ * Results of sentences SENNA has already processed, keyed by the SENNA command
+ * line, whether the sentence has user tokens and its SENNA text. {@link Senna}
+ * replays hits into the sentences and only sends the misses to SENNA. The least
+ * recently used results are evicted when the approximate size of the cached
+ * results exceeds the maximum size. A cache can be shared by any number of
+ * {@link Senna} instances.
+ */
+public class ResultCache {
+
+	private static final int ENTRY_SIZE = 96;
+
+	private final long maxSize;
+	private final LinkedHashMap<Key, SentenceResult> results = new LinkedHashMap<>(16, 0.75f, true);
+	private long size;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * @param maxSize
+	 *            approximate maximum number of bytes of the cached results
+	 */
+	public ResultCache(long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	protected synchronized SentenceResult get(List<String> command, Sentence sentence) throws IOException {
+		SentenceResult result = results.get(new Key(command, sentence));
+		if (result != null) {
+			hits++;
+		} else {
+			misses++;
+		}
+		return result;
+	}
+
+	protected synchronized void put(List<String> command, Sentence sentence, SentenceResult result) {
+		Key key = new Key(command, sentence);
+		long entrySize = size(key, result);
+		if (entrySize > maxSize) {
+			return;
+		}
+		SentenceResult previous = results.put(key, result);
+		if (previous != null) {
+			size -= size(key, previous);
+		}
+		size += entrySize;
+		Iterator<Map.Entry<Key, SentenceResult>> iterator = results.entrySet().iterator();
+		while (size > maxSize && iterator.hasNext()) {
+			Map.Entry<Key, SentenceResult> eldest = iterator.next();
+			size -= size(eldest.getKey(), eldest.getValue());
+			iterator.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * Adds the results of sentences SENNA has completed.
+	 */
+	protected void putAll(List<String> command, List<Sentence> sentences) throws IOException {
+		for (Sentence sentence : sentences) {
+			if (isCacheable(sentence)) {
+				put(command, sentence, SentenceResult.capture(sentence));
+			}
+		}
+	}
+
+	/**
+	 * @return true if SENNA has completed the sentence, so its tags can be reused
+	 */
+	protected static boolean isCacheable(Sentence sentence) {
+		return sentence.getStatus() == SentenceStatus.COMPLETED && !sentence.getTokens().isEmpty();
+	}
+
+	private static long size(Key key, SentenceResult result) {
+		return ENTRY_SIZE + 2L * key.sennaText.length() + result.estimateSize();
+	}
+
+	public synchronized void clear() {
+		results.clear();
+		size = 0;
+	}
+
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return the approximate number of bytes of the cached results
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	public synchronized int getEntryCount() {
+		return results.size();
+	}
+
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	public synchronized long getMissCount() {
+		return misses;
+	}
+
+	public synchronized long getEvictionCount() {
+		return evictions;
+	}
+
+	public synchronized double getHitRate() {
+		return hits + misses > 0 ? (double) hits / (hits + misses) : 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "ResultCache [entries=" + results.size() + ", size=" + size + ", maxSize=" + maxSize + ", hits="
+				+ hits + ", misses=" + misses + ", evictions=" + evictions + "]";
+	}
+
+	private static class Key {
+		private final List<String> command;
+		private final boolean userTokens;
+		private final String sennaText;
+		private final int hashCode;
+
+		private Key(List<String> command, Sentence sentence) {
+			this.command = command;
+			this.userTokens = sentence.hasUserTokens();
+			this.sennaText = sentence.getSennaText();
+			this.hashCode = (command.hashCode() * 31 + (userTokens ? 1 : 0)) * 31 + sennaText.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) object;
+			return hashCode == other.hashCode && userTokens == other.userTokens && sennaText.equals(other.sennaText)
+					&& command.equals(other.command);
+		}
+	}
+
+}
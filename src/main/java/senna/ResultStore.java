@@ -0,0 +1,555 @@
+package senna;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import senna.mapping.Sentence;
+import senna.mapping.SentenceResult;
+import senna.mapping.TagDictionary;
+
+/**
+ * Sentence results in a directory that can be shared by several JVMs. Results
+ * are appended to a data file and found through a memory mapped hash index of
+ * key hashes and record offsets. Writers hold a file lock while appending and
+ * updating the index; readers do not lock, as index slots are written before
+ * they are counted and every record carries its key and a checksum. When the
+ * index grows or the data file is compacted, new files are written and renamed
+ * into place and the old index is marked stale, so other JVMs reopen the
+ * current files on their next lookup. Within the JVM, lookups hold the files
+ * they read from, which are closed once they are replaced and no longer read.
+ */
+class ResultStore implements Closeable {
+
+	private static final int MAGIC = 0x53454e43;
+	private static final int VERSION = 1;
+
+	private static final String INDEX_FILE = "index";
+	private static final String LOCK_FILE = "lock";
+	private static final String DATA_FILE_PREFIX = "data-";
+
+	private static final int HEADER_SIZE = 64;
+	private static final int MAGIC_POSITION = 0;
+	private static final int VERSION_POSITION = 4;
+	private static final int GENERATION_POSITION = 8;
+	private static final int CAPACITY_POSITION = 16;
+	private static final int COUNT_POSITION = 20;
+	private static final int STALE_POSITION = 24;
+	private static final int SLOT_SIZE = 16;
+	private static final int INITIAL_CAPACITY = 1 << 12;
+	private static final double MAX_LOAD = 0.5;
+
+	private static final int RECORD_HEADER_SIZE = 8;
+	private static final long EMPTY = 0;
+
+	/**
+	 * Monitors of the directories used in this JVM, as file locks are held per
+	 * JVM and not per thread.
+	 */
+	private static final ConcurrentHashMap<String, Object> DIRECTORY_MONITORS = new ConcurrentHashMap<>();
+
+	private final File directory;
+	private final Object directoryMonitor;
+	private final TagDictionary dictionary = TagDictionary.getShared();
+
+	private volatile Generation current;
+	private boolean closed;
+	private List<String> lastCommand;
+	private long lastCommandHash;
+
+	/**
+	 * The index and data file of one generation, with the number of threads
+	 * using them.
+	 */
+	private static class Generation {
+		private final RandomAccessFile indexFile;
+		private final MappedByteBuffer index;
+		private final long generation;
+		private final int capacity;
+		private final FileChannel data;
+		private int users;
+		private boolean retired;
+
+		private Generation(RandomAccessFile indexFile, MappedByteBuffer index, FileChannel data) {
+			this.indexFile = indexFile;
+			this.index = index;
+			this.generation = index.getLong(GENERATION_POSITION);
+			this.capacity = index.getInt(CAPACITY_POSITION);
+			this.data = data;
+		}
+
+		private boolean isStale() {
+			return index.getInt(STALE_POSITION) != 0;
+		}
+
+		/**
+		 * @return false if the files have been replaced and are closed or about to
+		 *         be
+		 */
+		private synchronized boolean acquire() {
+			if (retired) {
+				return false;
+			}
+			users++;
+			return true;
+		}
+
+		private synchronized void release() throws IOException {
+			if (--users == 0 && retired) {
+				close();
+			}
+		}
+
+		/**
+		 * Closes the files once no thread uses them any more.
+		 */
+		private synchronized void retire() throws IOException {
+			if (!retired) {
+				retired = true;
+				if (users == 0) {
+					close();
+				}
+			}
+		}
+
+		private void close() throws IOException {
+			data.close();
+			indexFile.close();
+		}
+	}
+
+	ResultStore(File directory) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("can not create " + directory);
+		}
+		this.directory = directory;
+		String path = directory.getCanonicalPath();
+		DIRECTORY_MONITORS.putIfAbsent(path, new Object());
+		this.directoryMonitor = DIRECTORY_MONITORS.get(path);
+		synchronized (directoryMonitor) {
+			try (FileChannel lockChannel = lockChannel()) {
+				FileLock lock = lockChannel.lock();
+				try {
+					if (!new File(directory, INDEX_FILE).exists()) {
+						replaceIndex(null, createFiles(1, INITIAL_CAPACITY));
+					}
+				} finally {
+					lock.release();
+				}
+			}
+		}
+		this.current = open();
+	}
+
+	private FileChannel lockChannel() throws IOException {
+		return new RandomAccessFile(new File(directory, LOCK_FILE), "rw").getChannel();
+	}
+
+	private Generation open() throws IOException {
+		RandomAccessFile indexFile = new RandomAccessFile(new File(directory, INDEX_FILE), "rw");
+		try {
+			MappedByteBuffer index = indexFile.getChannel().map(MapMode.READ_WRITE, 0, indexFile.length());
+			if (index.getInt(MAGIC_POSITION) != MAGIC || index.getInt(VERSION_POSITION) != VERSION) {
+				throw new IOException("unknown result store format in " + directory);
+			}
+			FileChannel data = new RandomAccessFile(dataFile(index.getLong(GENERATION_POSITION)), "r")
+					.getChannel();
+			return new Generation(indexFile, index, data);
+		} catch (IOException | RuntimeException e) {
+			indexFile.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the current files, reopened if another store replaced them, to be
+	 *         released with {@link Generation#release()}
+	 */
+	private Generation acquire() throws IOException {
+		while (true) {
+			Generation files = current;
+			// the data channel is closed when a thread is interrupted while reading it
+			if (!files.isStale() && files.data.isOpen() && files.acquire()) {
+				return files;
+			}
+			reopen(files);
+		}
+	}
+
+	/**
+	 * Replaces the files if they are still the current ones. The old ones are
+	 * closed when the last thread reading them has released them.
+	 */
+	private void reopen(Generation files) throws IOException {
+		synchronized (this) {
+			if (closed) {
+				throw new IOException("result store is closed");
+			}
+			if (current == files) {
+				current = open();
+				files.retire();
+			}
+		}
+	}
+
+	private File dataFile(long generation) {
+		return new File(directory, DATA_FILE_PREFIX + generation);
+	}
+
+	/**
+	 * Writes an empty index of the given generation and creates its data file.
+	 */
+	private MappedByteBuffer createFiles(long generation, int capacity) throws IOException {
+		File dataFile = dataFile(generation);
+		try (RandomAccessFile data = new RandomAccessFile(dataFile, "rw")) {
+			data.setLength(0);
+			// offset 0 marks empty index slots
+			data.writeInt(MAGIC);
+			data.writeInt(VERSION);
+		}
+		return createIndex(generation, capacity);
+	}
+
+	private MappedByteBuffer createIndex(long generation, int capacity) throws IOException {
+		File indexFile = new File(directory, INDEX_FILE + ".tmp");
+		try (RandomAccessFile index = new RandomAccessFile(indexFile, "rw")) {
+			index.setLength(0);
+			index.setLength(HEADER_SIZE + (long) capacity * SLOT_SIZE);
+			MappedByteBuffer buffer = index.getChannel().map(MapMode.READ_WRITE, 0, index.length());
+			buffer.putInt(MAGIC_POSITION, MAGIC);
+			buffer.putInt(VERSION_POSITION, VERSION);
+			buffer.putLong(GENERATION_POSITION, generation);
+			buffer.putInt(CAPACITY_POSITION, capacity);
+			return buffer;
+		}
+	}
+
+	/**
+	 * Replaces the current index by the one written by
+	 * {@link #createIndex(long, int)} and marks the old one stale, if there is
+	 * one.
+	 */
+	private void replaceIndex(Generation old, MappedByteBuffer index) throws IOException {
+		index.force();
+		Files.move(new File(directory, INDEX_FILE + ".tmp").toPath(),
+				new File(directory, INDEX_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		if (old != null) {
+			old.index.putInt(STALE_POSITION, 1);
+		}
+	}
+
+	SentenceResult read(List<String> command, Sentence sentence) throws IOException {
+		long commandHash = commandHash(command);
+		boolean userTokens = sentence.hasUserTokens();
+		String sennaText = sentence.getSennaText();
+		long hash = hash(commandHash, userTokens, sennaText);
+		while (true) {
+			// an interrupted thread would close the data channel other threads read
+			if (Thread.currentThread().isInterrupted()) {
+				return null;
+			}
+			try {
+				Generation files = acquire();
+				try {
+					return read(files, hash, commandHash, userTokens, sennaText);
+				} finally {
+					files.release();
+				}
+			} catch (ClosedChannelException e) {
+				// closed by an interrupt, the next lookup reopens the files
+			}
+		}
+	}
+
+	private SentenceResult read(Generation files, long hash, long commandHash, boolean userTokens, String sennaText)
+			throws IOException {
+		int mask = files.capacity - 1;
+		for (int slot = (int) hash & mask, probes = 0; probes < files.capacity; slot = (slot + 1) & mask, probes++) {
+			int position = HEADER_SIZE + slot * SLOT_SIZE;
+			long slotHash = files.index.getLong(position);
+			if (slotHash == EMPTY) {
+				return null;
+			} else if (slotHash == hash) {
+				long offset = files.index.getLong(position + 8);
+				DataInputStream in = readRecord(files.data, offset);
+				if (in != null && in.readLong() == commandHash && in.readBoolean() == userTokens
+						&& in.readUTF().equals(sennaText)) {
+					return SentenceResult.read(in, dictionary);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the payload of a record, null if it is incomplete or corrupt
+	 */
+	private static DataInputStream readRecord(FileChannel data, long offset) throws IOException {
+		if (offset == EMPTY) {
+			// slot is being written
+			return null;
+		}
+		ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+		if (readFully(data, header, offset) < RECORD_HEADER_SIZE) {
+			return null;
+		}
+		int length = header.getInt(0);
+		int checksum = header.getInt(4);
+		if (length <= 0 || offset + RECORD_HEADER_SIZE + length > data.size()) {
+			return null;
+		}
+		ByteBuffer payload = ByteBuffer.allocate(length);
+		readFully(data, payload, offset + RECORD_HEADER_SIZE);
+		CRC32 crc = new CRC32();
+		crc.update(payload.array(), 0, length);
+		if ((int) crc.getValue() != checksum) {
+			return null;
+		}
+		return new DataInputStream(new ByteArrayInputStream(payload.array()));
+	}
+
+	private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		int read = 0;
+		while (buffer.hasRemaining()) {
+			int count = channel.read(buffer, position + read);
+			if (count < 0) {
+				break;
+			}
+			read += count;
+		}
+		return read;
+	}
+
+	/**
+	 * Appends the results of the sentences that are not stored yet.
+	 */
+	void write(List<String> command, List<Sentence> sentences, List<SentenceResult> results) throws IOException {
+		long commandHash = commandHash(command);
+		synchronized (directoryMonitor) {
+			try (FileChannel lockChannel = lockChannel()) {
+				FileLock lock = lockChannel.lock();
+				Generation files = acquire();
+				try {
+					try (FileChannel data = FileChannel.open(dataFile(files.generation).toPath(),
+							StandardOpenOption.WRITE)) {
+						long end = data.size();
+						for (int i = 0; i < sentences.size(); i++) {
+							Sentence sentence = sentences.get(i);
+							boolean userTokens = sentence.hasUserTokens();
+							String sennaText = sentence.getSennaText();
+							if (read(command, sentence) != null) {
+								continue;
+							}
+							ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+							DataOutputStream out = new DataOutputStream(bytes);
+							out.writeLong(commandHash);
+							out.writeBoolean(userTokens);
+							out.writeUTF(sennaText);
+							results.get(i).write(out);
+							out.flush();
+							long offset = end;
+							end += appendRecord(data, offset, bytes.toByteArray());
+							files = insert(files, hash(commandHash, userTokens, sennaText), offset);
+						}
+						data.force(false);
+					}
+					files.index.force();
+				} finally {
+					files.release();
+					lock.release();
+				}
+			}
+		}
+	}
+
+	private static int appendRecord(FileChannel data, long offset, byte[] payload) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+		record.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+		int written = 0;
+		while (record.hasRemaining()) {
+			written += data.write(record, offset + written);
+		}
+		return written;
+	}
+
+	/**
+	 * Adds an index slot, growing the index if it is too full. Must be called with
+	 * the file lock held.
+	 *
+	 * @return the files now in use, acquired in place of the given ones
+	 */
+	private Generation insert(Generation files, long hash, long offset) throws IOException {
+		int count = files.index.getInt(COUNT_POSITION);
+		if (count + 1 > files.capacity * MAX_LOAD) {
+			MappedByteBuffer index = createIndex(files.generation, files.capacity * 2);
+			copySlots(files.index, files.capacity, index);
+			replaceIndex(files, index);
+			Generation grown = acquire();
+			files.release();
+			files = grown;
+		}
+		putSlot(files.index, files.capacity, hash, offset);
+		files.index.putInt(COUNT_POSITION, files.index.getInt(COUNT_POSITION) + 1);
+		return files;
+	}
+
+	private static void putSlot(ByteBuffer index, int capacity, long hash, long offset) {
+		int mask = capacity - 1;
+		int slot = (int) hash & mask;
+		while (index.getLong(HEADER_SIZE + slot * SLOT_SIZE) != EMPTY) {
+			slot = (slot + 1) & mask;
+		}
+		int position = HEADER_SIZE + slot * SLOT_SIZE;
+		// readers skip slots whose offset is not written yet
+		index.putLong(position + 8, offset);
+		index.putLong(position, hash);
+	}
+
+	private static void copySlots(ByteBuffer from, int capacity, ByteBuffer to) {
+		int newCapacity = to.getInt(CAPACITY_POSITION);
+		for (int slot = 0; slot < capacity; slot++) {
+			long hash = from.getLong(HEADER_SIZE + slot * SLOT_SIZE);
+			if (hash != EMPTY) {
+				putSlot(to, newCapacity, hash, from.getLong(HEADER_SIZE + slot * SLOT_SIZE + 8));
+			}
+		}
+		to.putInt(COUNT_POSITION, from.getInt(COUNT_POSITION));
+	}
+
+	/**
+	 * Rewrites the data file with only the records the index refers to, dropping
+	 * records of duplicate writes and of writers that did not finish.
+	 */
+	void compact() throws IOException {
+		synchronized (directoryMonitor) {
+			try (FileChannel lockChannel = lockChannel()) {
+				FileLock lock = lockChannel.lock();
+				Generation files = acquire();
+				try {
+					long generation = files.generation + 1;
+					int count = files.index.getInt(COUNT_POSITION);
+					int capacity = INITIAL_CAPACITY;
+					while (count > capacity * MAX_LOAD) {
+						capacity *= 2;
+					}
+					MappedByteBuffer index = createFiles(generation, capacity);
+					int copied = 0;
+					try (FileChannel data = FileChannel.open(dataFile(generation).toPath(),
+							StandardOpenOption.WRITE)) {
+						long end = data.size();
+						for (int slot = 0; slot < files.capacity; slot++) {
+							int position = HEADER_SIZE + slot * SLOT_SIZE;
+							long hash = files.index.getLong(position);
+							long offset = files.index.getLong(position + 8);
+							DataInputStream in = hash != EMPTY ? readRecord(files.data, offset) : null;
+							if (in != null) {
+								byte[] payload = new byte[in.available()];
+								in.readFully(payload);
+								putSlot(index, capacity, hash, end);
+								end += appendRecord(data, end, payload);
+								copied++;
+							}
+						}
+						data.force(false);
+					}
+					index.putInt(COUNT_POSITION, copied);
+					replaceIndex(files, index);
+					reopen(files);
+					// readers of other JVMs may still read the old file until they see the stale index
+					dataFile(files.generation).delete();
+				} finally {
+					files.release();
+					lock.release();
+				}
+			}
+		}
+	}
+
+	int getEntryCount() throws IOException {
+		Generation files = acquire();
+		try {
+			return files.index.getInt(COUNT_POSITION);
+		} finally {
+			files.release();
+		}
+	}
+
+	long getDataSize() throws IOException {
+		Generation files = acquire();
+		try {
+			return files.data.size();
+		} finally {
+			files.release();
+		}
+	}
+
+	private long commandHash(List<String> command) {
+		synchronized (this) {
+			if (command == lastCommand) {
+				return lastCommandHash;
+			}
+		}
+		long hash;
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for (String argument : command) {
+				digest.update(argument.getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+			}
+			hash = ByteBuffer.wrap(digest.digest()).getLong();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		synchronized (this) {
+			lastCommand = command;
+			lastCommandHash = hash;
+		}
+		return hash;
+	}
+
+	/**
+	 * FNV-1a hash of the key, never {@link #EMPTY}.
+	 */
+	private static long hash(long commandHash, boolean userTokens, String sennaText) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < 8; i++) {
+			hash = (hash ^ ((commandHash >>> (i * 8)) & 0xff)) * 0x100000001b3L;
+		}
+		hash = (hash ^ (userTokens ? 1 : 0)) * 0x100000001b3L;
+		for (int i = 0; i < sennaText.length(); i++) {
+			hash = (hash ^ sennaText.charAt(i)) * 0x100000001b3L;
+		}
+		hash ^= hash >>> 32;
+		return hash != EMPTY ? hash : 1;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		closed = true;
+		current.retire();
+	}
+
+}
@@ -0,0 +1,129 @@
+package senna;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import senna.mapping.DocumentSlice;
+import senna.mapping.Sentence;
+import senna.mapping.SentenceListener;
+import senna.mapping.SentenceStatus;
+
+/**
+ * Executes the sentences of a slice and, when the SENNA process dies on the
+ * way, sends only the sentences it has not completed to a new process. A
+ * sentence on which {@link #MAX_ATTEMPTS} processes in a row have died is
+ * marked {@link SentenceStatus#FAILED} and skipped, so one bad sentence does not
+ * cost its document. If SENNA dies on several sentences in a row, it is assumed
+ * to fail on every sentence and the execution fails.
+ * <p>
+ * Each run is watched by a {@link Watchdog}. A sentence on which a run exceeds
+ * the sentence timeout is marked {@link SentenceStatus#SKIPPED} with
+ * {@link TimeoutPolicy#SKIP}, and stops the execution otherwise. Once the
+ * execution is stopped, the remaining sentences are left to the
+ * {@link SentenceDispatcher}.
+ */
+abstract class ResumableExecution {
+
+	static final int MAX_ATTEMPTS = 3;
+
+	private static final int MAX_FAILED_IN_ROW = 3;
+
+	/**
+	 * Executes the sentences of the slice once, in a process the watchdog is
+	 * started on and stopped before the process is released. Returns without
+	 * executing if the watchdog refuses to start.
+	 *
+	 * @throws EOFException
+	 *             if the process died before completing all sentences
+	 */
+	protected abstract void executeOnce(DocumentSlice slice, Watchdog watchdog)
+			throws IOException, InterruptedException, ExecutionException;
+
+	/**
+	 * @return false if the process was destroyed on purpose
+	 */
+	protected abstract boolean mayResume();
+
+	void execute(DocumentSlice slice, SentenceListener parsed, Deadline deadline)
+			throws IOException, InterruptedException, ExecutionException {
+		List<Sentence> sentences = slice.getSentences();
+		int done = 0;
+		int deaths = 0;
+		int failedInRow = 0;
+		while (done < sentences.size()) {
+			CountingListener counting = new CountingListener(parsed);
+			Watchdog watchdog = new Watchdog(deadline, counting);
+			try {
+				executeOnce(slice.slice(done, sentences.size()), watchdog);
+				return;
+			} catch (IOException e) {
+				if (deadline.isStopped()) {
+					return;
+				}
+				boolean expired = watchdog.isExpired();
+				if (!mayResume() || !expired && !(e instanceof EOFException)) {
+					throw e;
+				}
+				if (counting.count > 0) {
+					done += counting.count;
+					deaths = 0;
+					failedInRow = 0;
+				}
+				if (done == sentences.size()) {
+					return;
+				}
+				if (expired && deadline.getPolicy() != TimeoutPolicy.SKIP) {
+					deadline.stop(new TimeoutException("sentence timeout has passed"));
+					return;
+				}
+				if (!deadline.enter()) {
+					return;
+				}
+				try {
+					// the sentence the process died on may have been parsed in part
+					Sentence next = sentences.get(done);
+					next.clearSennaTokens();
+					if (expired) {
+						next.setStatus(SentenceStatus.SKIPPED);
+					} else if (++deaths < MAX_ATTEMPTS) {
+						continue;
+					} else if (++failedInRow == MAX_FAILED_IN_ROW) {
+						throw e;
+					} else {
+						next.setStatus(SentenceStatus.FAILED);
+					}
+					if (parsed != null) {
+						parsed.sentenceCompleted(next);
+					}
+					done++;
+					deaths = 0;
+				} finally {
+					deadline.exit();
+				}
+			}
+		}
+	}
+
+	private static class CountingListener implements SentenceListener {
+
+		private final SentenceListener parsed;
+		private int count;
+
+		private CountingListener(SentenceListener parsed) {
+			this.parsed = parsed;
+		}
+
+		@Override
+		public void sentenceCompleted(Sentence sentence) {
+			count++;
+			if (parsed != null) {
+				parsed.sentenceCompleted(sentence);
+			}
+		}
+
+	}
+
+}
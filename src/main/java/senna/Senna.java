@@ -1,154 +1,641 @@
-package senna;
-
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
-
-import senna.mapping.Document;
-import senna.mapping.MultiToken;
-import senna.mapping.ResultParser;
-import senna.mapping.Sentence;
-import senna.mapping.SubDocument;
-
-public class Senna {
-
-	private ExecutorService executor;
-	private Integer processes;
-	private ProcessBuilder processBuilder;
-	private Collection<Option<? extends MultiToken>> processOptions;
-	private Collection<Option<? extends MultiToken>> parseOptions;
-	private boolean bracketTags;
-	private OutputStream errorStream;
-
-	private Set<Process> currentProcesses = new HashSet<>();
-
-	protected Senna(ExecutorService executor, Integer processes, OutputStream errorStream,
-			ProcessBuilder processBuilder, Collection<Option<? extends MultiToken>> processOptions,
-			Collection<Option<? extends MultiToken>> parseOptions, boolean bracketTags) {
-		this.executor = executor;
-		this.processes = processes;
-		this.errorStream = errorStream;
-		this.processBuilder = processBuilder;
-		this.processOptions = processOptions;
-		this.parseOptions = parseOptions;
-		this.bracketTags = bracketTags;
-	}
-
-	public void execute(final Document document) throws IOException, InterruptedException, ExecutionException {
-		if (processes == 1) {
-			executeProcess(document);
-		} else {
-			Set<Future<?>> futures = new HashSet<>();
-			List<Integer> sentencesCountList = splitIntoParts(document.getSentences().size(), processes);
-			Integer startSentenceIndex = 0;
-			for (int subDocument = 0; subDocument < processes; subDocument++) {
-				Integer sentencesCount = sentencesCountList.get(subDocument);
-				if (sentencesCount > 0) {
-					int endSentenceIndex = startSentenceIndex + sentencesCount - 1;
-					Future<Void> future = executeDocument(document, startSentenceIndex, endSentenceIndex);
-					futures.add(future);
-					startSentenceIndex = endSentenceIndex + 1;
-				}
-			}
-			for (Future<?> future : futures) {
-				future.get();
-			}
-		}
-		for (Option<? extends MultiToken> option : parseOptions) {
-			ResultParser.parseAnnotations(document, option, bracketTags);
-		}
-	}
-
-	private static List<Integer> splitIntoParts(Integer x, Integer n) {
-		List<Integer> list = new ArrayList<>();
-		int f = x / n;
-		int r = x % n;
-		for (int i = 0; i < n; i++) {
-			if (i < n - r) {
-				list.add(f);
-			} else {
-				list.add(f + 1);
-			}
-		}
-		return list;
-	}
-
-	private Future<Void> executeDocument(final Document document, int startSentenceIndex, int endSentenceIndex) {
-		Future<Void> future = executor.submit(new Callable<Void>() {
-
-			@Override
-			public Void call() throws Exception {
-				Sentence startSentence = document.getSentences().get(startSentenceIndex);
-				Sentence endSentence = document.getSentences().get(endSentenceIndex);
-				SubDocument subDocument = new SubDocument(document, startSentence, endSentence);
-				executeProcess(subDocument);
-				subDocument.mergeToOriginal();
-				return null;
-			}
-
-		});
-		return future;
-	}
-
-	private void executeProcess(final Document document) throws IOException, InterruptedException, ExecutionException {
-		try {
-			Process process = processBuilder.start();
-			currentProcesses.add(process);
-
-			executor.submit(new Callable<Void>() {
-				@Override
-				public Void call() throws Exception {
-					OutputStream outputStream = process.getOutputStream();
-					ByteArrayInputStream in = new ByteArrayInputStream(document.getSennaText().getBytes());
-					Util.copy(in, outputStream);
-					in.close();
-					outputStream.close();
-					return null;
-				}
-			});
-
-			executor.submit(new Callable<Void>() {
-				@Override
-				public Void call() throws Exception {
-					InputStream errorStream = process.getErrorStream();
-					Util.copy(errorStream, Senna.this.errorStream);
-					errorStream.close();
-					return null;
-				}
-			});
-
-			InputStream inputStream = process.getInputStream();
-			ResultParser.parse(document, inputStream, processOptions);
-			inputStream.close();
-
-			process.waitFor();
-			currentProcesses.remove(process);
-		} catch (IOException e) {
-			cancel();
-			throw e;
-		} catch (InterruptedException e) {
-			cancel();
-			throw e;
-		}
-	}
-
-	public void cancel() {
-		executor.shutdownNow();
-		for (Process process : currentProcesses) {
-			if (process.isAlive()) {
-				process.destroy();
-			}
-		}
-	}
-
-}
+package senna;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import senna.mapping.ColumnReader;
+import senna.mapping.CombinedDocument;
+import senna.mapping.Document;
+import senna.mapping.DocumentSlice;
+import senna.mapping.MultiToken;
+import senna.mapping.ResultParser;
+import senna.mapping.Sentence;
+import senna.mapping.SentenceListener;
+import senna.mapping.SentenceResult;
+import senna.mapping.SentenceStatus;
+import senna.mapping.SubDocument;
+
+public class Senna {
+
+	private ExecutorService executor;
+	private Integer processes;
+	private ProcessBuilder processBuilder;
+	private Collection<Option<? extends MultiToken>> processOptions;
+	private Collection<Option<? extends MultiToken>> parseOptions;
+	private boolean bracketTags;
+	private OutputStream errorStream;
+	private SennaPool pool;
+	private CostEstimator costEstimator;
+	private ResultCache resultCache;
+	private List<Senna> taskGroups;
+	private AsyncQueue asyncQueue;
+	private long documentTimeout;
+	private long executionTimeout;
+	private long sentenceTimeout;
+	private TimeoutPolicy timeoutPolicy;
+
+	private volatile boolean cancelled;
+	private Set<Process> currentProcesses = Collections.newSetFromMap(new ConcurrentHashMap<Process, Boolean>());
+	private Set<SennaWorker> borrowedWorkers = Collections
+			.newSetFromMap(new ConcurrentHashMap<SennaWorker, Boolean>());
+
+	protected Senna(ExecutorService executor, Integer processes, OutputStream errorStream,
+			ProcessBuilder processBuilder, SennaPool pool, CostEstimator costEstimator, ResultCache resultCache,
+			List<Senna> taskGroups, Collection<Option<? extends MultiToken>> processOptions,
+			Collection<Option<? extends MultiToken>> parseOptions, boolean bracketTags, long documentTimeout,
+			long executionTimeout, long sentenceTimeout, TimeoutPolicy timeoutPolicy) {
+		this.executor = executor;
+		this.processes = processes;
+		this.errorStream = errorStream;
+		this.processBuilder = processBuilder;
+		this.pool = pool;
+		this.costEstimator = costEstimator;
+		this.resultCache = resultCache;
+		this.taskGroups = taskGroups;
+		this.processOptions = processOptions;
+		this.parseOptions = parseOptions;
+		this.bracketTags = bracketTags;
+		this.documentTimeout = documentTimeout;
+		this.executionTimeout = executionTimeout;
+		this.sentenceTimeout = sentenceTimeout;
+		this.timeoutPolicy = timeoutPolicy;
+		// the batches wait for tasks on the executor, so they must not take one of its threads
+		this.asyncQueue = new AsyncQueue(this, IoThreads.executor());
+	}
+
+	public void execute(final Document document) throws IOException, InterruptedException, ExecutionException {
+		execute(document, null);
+	}
+
+	/**
+	 * Executes the document and notifies the listener of each sentence in order.
+	 *
+	 * @throws ExecutionException
+	 *             with a {@link TimeoutException} when a time limit has passed
+	 *             with {@link TimeoutPolicy#FAIL}
+	 */
+	public void execute(final Document document, SentenceListener listener)
+			throws IOException, InterruptedException, ExecutionException {
+		SentenceDispatcher dispatcher = new SentenceDispatcher(Collections.singletonList(document), listener,
+				parseOptions, bracketTags, newDeadline(1));
+		process(document, dispatcher, dispatcher);
+	}
+
+	public void execute(List<Document> documents) throws IOException, InterruptedException, ExecutionException {
+		execute(documents, null);
+	}
+
+	/**
+	 * Executes the documents together. The document timeout applies to the
+	 * documents as a whole, multiplied by their number, unless the execution
+	 * timeout is smaller.
+	 */
+	public void execute(List<Document> documents, SentenceListener listener)
+			throws IOException, InterruptedException, ExecutionException {
+		if (documents.size() == 1) {
+			execute(documents.get(0), listener);
+			return;
+		}
+		SentenceDispatcher dispatcher = new SentenceDispatcher(documents, listener, parseOptions, bracketTags,
+				newDeadline(documents.size()));
+		final CombinedDocument combinedDocument = new CombinedDocument(documents);
+		process(combinedDocument, mergeTo(combinedDocument, dispatcher), dispatcher);
+	}
+
+	private Deadline newDeadline(int documents) {
+		long timeout = documentTimeout * documents;
+		if (executionTimeout > 0 && (timeout == 0 || executionTimeout < timeout)) {
+			timeout = executionTimeout;
+		}
+		return new Deadline(timeout, sentenceTimeout, timeoutPolicy);
+	}
+
+	/**
+	 * Executes the document in the background. Documents passed to this method
+	 * are queued and executed in batches by one background thread, which calls
+	 * the listener. The executor only runs the processes, so a pool with a thread
+	 * for each process is enough. Cancelling the future skips a document that has
+	 * not been started and stops notifying its listener otherwise.
+	 */
+	public CompletableFuture<Document> executeAsync(Document document) {
+		return executeAsync(document, null);
+	}
+
+	public CompletableFuture<Document> executeAsync(Document document, SentenceListener listener) {
+		return asyncQueue.add(document, listener);
+	}
+
+	public CompletableFuture<List<Document>> executeAsync(List<Document> documents) {
+		return executeAsync(documents, null);
+	}
+
+	/**
+	 * Executes the documents in the background like
+	 * {@link #executeAsync(Document, SentenceListener)}. Cancelling the future
+	 * cancels the documents that have not completed.
+	 */
+	public CompletableFuture<List<Document>> executeAsync(final List<Document> documents,
+			SentenceListener listener) {
+		final List<CompletableFuture<Document>> futures = new ArrayList<>();
+		for (Document document : documents) {
+			futures.add(executeAsync(document, listener));
+		}
+		final CompletableFuture<List<Document>> result = CompletableFuture
+				.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]))
+				.thenApply(new Function<Void, List<Document>>() {
+					@Override
+					public List<Document> apply(Void completed) {
+						return documents;
+					}
+				});
+		result.whenComplete(new BiConsumer<List<Document>, Throwable>() {
+			@Override
+			public void accept(List<Document> completed, Throwable throwable) {
+				if (result.isCancelled()) {
+					for (CompletableFuture<Document> future : futures) {
+						future.cancel(false);
+					}
+				}
+			}
+		});
+		return result;
+	}
+
+	private void process(final Document document, SentenceListener parsed, SentenceDispatcher dispatcher)
+			throws IOException, InterruptedException, ExecutionException {
+		List<String> command = processBuilder.command();
+		List<Sentence> misses = new ArrayList<>();
+		for (Sentence sentence : document.getSentences()) {
+			SentenceResult result = resultCache != null ? resultCache.get(command, sentence) : null;
+			if (result != null) {
+				result.replay(sentence);
+				parsed.sentenceCompleted(sentence);
+			} else {
+				misses.add(sentence);
+			}
+		}
+
+		// identical sentences are sent once, the others get a copy of its result
+		List<Sentence> unique = new ArrayList<>();
+		Map<Sentence, List<Sentence>> duplicates = new IdentityHashMap<>();
+		Map<List<Object>, Sentence> firstOccurrences = new HashMap<>();
+		for (Sentence sentence : misses) {
+			List<Object> key = Arrays.<Object>asList(sentence.hasUserTokens(), sentence.getSennaText());
+			Sentence first = firstOccurrences.putIfAbsent(key, sentence);
+			if (first == null) {
+				unique.add(sentence);
+			} else {
+				if (!duplicates.containsKey(first)) {
+					duplicates.put(first, new ArrayList<Sentence>());
+				}
+				duplicates.get(first).add(sentence);
+			}
+		}
+		if (!duplicates.isEmpty()) {
+			parsed = copyTo(duplicates, parsed);
+		}
+
+		if (unique.isEmpty()) {
+			dispatcher.await();
+			return;
+		} else if (unique.size() == document.getSentences().size()) {
+			processSentences(new DocumentSlice(document), parsed, dispatcher);
+		} else {
+			processSentences(new DocumentSlice(document, unique), parsed, dispatcher);
+		}
+		if (resultCache != null) {
+			// completed sentences are cached even if a time limit has stopped the execution, the
+			// others are skipped by the status check; no thread writes to the sentences any more
+			resultCache.putAll(command, unique);
+		}
+		Deadline deadline = dispatcher.getDeadline();
+		if (deadline.isStopped() && deadline.getPolicy() == TimeoutPolicy.FAIL) {
+			throw new ExecutionException(deadline.getTimeout());
+		}
+	}
+
+	private static SentenceListener copyTo(final Map<Sentence, List<Sentence>> duplicates,
+			final SentenceListener parsed) {
+		return new SentenceListener() {
+			@Override
+			public void sentenceCompleted(Sentence sentence) {
+				List<Sentence> copies = duplicates.get(sentence);
+				if (copies != null) {
+					if (sentence.getStatus() == SentenceStatus.FAILED) {
+						for (Sentence copy : copies) {
+							copy.setStatus(SentenceStatus.FAILED);
+						}
+					} else {
+						SentenceResult result = SentenceResult.capture(sentence);
+						for (Sentence copy : copies) {
+							result.replay(copy);
+						}
+					}
+				}
+				parsed.sentenceCompleted(sentence);
+				if (copies != null) {
+					for (Sentence copy : copies) {
+						parsed.sentenceCompleted(copy);
+					}
+				}
+			}
+		};
+	}
+
+	private void processSentences(final DocumentSlice slice, SentenceListener parsed, SentenceDispatcher dispatcher)
+			throws IOException, InterruptedException, ExecutionException {
+		if (taskGroups != null) {
+			processTaskGroups(slice, parsed, dispatcher);
+		} else if (processes == 1) {
+			executeDocument(slice, parsed, dispatcher.getDeadline());
+			dispatcher.await();
+		} else if (pool != null) {
+			new SentenceScheduler(slice, pool, processOptions, this, processes).execute(executor, processes, parsed,
+					dispatcher);
+		} else {
+			List<Partition> partitions = new ArrayList<>();
+			List<Integer> sentencesCountList = splitIntoParts(slice.getSentences(), processes);
+			Integer startSentenceIndex = 0;
+			for (int subDocument = 0; subDocument < processes; subDocument++) {
+				Integer sentencesCount = sentencesCountList.get(subDocument);
+				if (sentencesCount > 0) {
+					int endSentenceIndex = startSentenceIndex + sentencesCount - 1;
+					partitions.add(new Partition(slice.slice(startSentenceIndex, endSentenceIndex + 1), parsed));
+					startSentenceIndex = endSentenceIndex + 1;
+				}
+			}
+			Set<Future<?>> futures = new HashSet<>();
+			for (Partition partition : partitions) {
+				futures.add(executePartition(partition, partitions, dispatcher));
+			}
+			dispatcher.await();
+			// once stopped, the processes have been destroyed and the sentences skipped
+			if (!dispatcher.getDeadline().isStopped()) {
+				for (Future<?> future : futures) {
+					future.get();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs each task group concurrently on its own copy of the document and adds
+	 * their columns to the sentences once all groups have completed them. The
+	 * groups only wait for their processes, which run on the executor, so they
+	 * run on the shared I/O threads and a pool with a thread for each process is
+	 * enough.
+	 */
+	private void processTaskGroups(final DocumentSlice slice, SentenceListener parsed,
+			final SentenceDispatcher dispatcher) throws InterruptedException, ExecutionException {
+		TaskGroupMerger merger = new TaskGroupMerger(slice.getSentences(), taskGroups.size(), parsed);
+		List<Future<Void>> futures = new ArrayList<>();
+		for (int group = 0; group < taskGroups.size(); group++) {
+			final Senna taskGroup = taskGroups.get(group);
+			// the groups parse concurrently, so each needs its own sentences
+			final SubDocument copy = new SubDocument(slice.getDocument(), slice.getSentences());
+			final SentenceListener groupParsed = merger.listener(copy, group);
+			futures.add(IoThreads.executor().submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					try {
+						SentenceDispatcher groupDispatcher = new SentenceDispatcher(
+								Collections.<Document>singletonList(copy), groupParsed,
+								Collections.<Option<? extends MultiToken>>emptyList(), false, dispatcher.getDeadline());
+						taskGroup.processSentences(new DocumentSlice(copy), groupDispatcher, groupDispatcher);
+						return null;
+					} catch (Exception e) {
+						dispatcher.fail(e);
+						throw e;
+					}
+				}
+			}));
+		}
+		dispatcher.await();
+		if (!dispatcher.getDeadline().isStopped()) {
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		}
+	}
+
+	private static SentenceListener mergeTo(final CombinedDocument combinedDocument,
+			final SentenceListener parsed) {
+		return new SentenceListener() {
+			@Override
+			public void sentenceCompleted(Sentence sentence) {
+				parsed.sentenceCompleted(combinedDocument.mergeToOriginal(sentence));
+			}
+		};
+	}
+
+	protected List<Integer> splitIntoParts(List<Sentence> sentences, Integer n) {
+		double[] costs = new double[sentences.size()];
+		double totalCost = 0;
+		for (int i = 0; i < costs.length; i++) {
+			costs[i] = costEstimator.estimate(sentences.get(i), processOptions);
+			totalCost += costs[i];
+		}
+		List<Integer> list = new ArrayList<>();
+		int sentence = 0;
+		for (int part = 0; part < n; part++) {
+			int remainingParts = n - part;
+			double target = totalCost / remainingParts;
+			int count = 0;
+			double cost = 0;
+			while (sentence < costs.length) {
+				boolean leaveForOtherParts = costs.length - sentence <= remainingParts - 1;
+				if (remainingParts > 1 && count > 0
+						&& (leaveForOtherParts || cost + costs[sentence] / 2 > target)) {
+					break;
+				}
+				cost += costs[sentence++];
+				count++;
+			}
+			totalCost -= cost;
+			list.add(count);
+		}
+		return list;
+	}
+
+	/**
+	 * Executes a part in its own process. When it has finished, the part furthest
+	 * behind is raced by a speculative process, if it has fallen far behind and
+	 * the execution has no time limits.
+	 */
+	private Future<Void> executePartition(final Partition partition, final List<Partition> partitions,
+			final SentenceDispatcher dispatcher) {
+		final Deadline deadline = dispatcher.getDeadline();
+		Future<Void> future = executor.submit(new Callable<Void>() {
+
+			@Override
+			public Void call() throws Exception {
+				try {
+					executeDocument(partition.getSlice(), partition.primaryListener(), deadline,
+							partition.getPrimary());
+				} catch (Exception e) {
+					if (partition.primaryEnded()) {
+						return null;
+					}
+					dispatcher.fail(e);
+					throw e;
+				}
+				if (!partition.primaryEnded() && !deadline.isLimited()) {
+					Partition straggler = Partition.findStraggler(partitions);
+					if (straggler != null) {
+						speculate(straggler, deadline);
+					}
+				}
+				return null;
+			}
+
+		});
+		return future;
+	}
+
+	private void speculate(final Partition partition, final Deadline deadline) {
+		if (cancelled) {
+			return;
+		}
+		final Partition.Attempt attempt = partition.startSpeculation();
+		if (attempt == null) {
+			return;
+		}
+		try {
+			executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					try {
+						executeProcess(partition.getSpeculativeSlice(), new Watchdog(deadline, null), attempt);
+					} finally {
+						partition.speculationEnded();
+					}
+					return null;
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// an own executor has been shut down by cancel(), the primary process is destroyed as well
+		}
+	}
+
+	private void executeDocument(final DocumentSlice slice, SentenceListener parsed, Deadline deadline)
+			throws IOException, InterruptedException, ExecutionException {
+		executeDocument(slice, parsed, deadline, null);
+	}
+
+	/**
+	 * Executes the slice in a pooled worker or a new process. When the process
+	 * dies, the sentences it has not completed are sent to another one.
+	 *
+	 * @param attempt
+	 *            the attempt of a raced part, null if the process is not raced
+	 */
+	private void executeDocument(final DocumentSlice slice, SentenceListener parsed, Deadline deadline,
+			final Partition.Attempt attempt) throws IOException, InterruptedException, ExecutionException {
+		try {
+			new ResumableExecution() {
+				@Override
+				protected void executeOnce(DocumentSlice remaining, Watchdog watchdog)
+						throws IOException, InterruptedException, ExecutionException {
+					if (pool != null) {
+						executeWorker(remaining, watchdog);
+					} else {
+						executeProcess(remaining, watchdog, attempt);
+					}
+				}
+
+				@Override
+				protected boolean mayResume() {
+					return !cancelled && (attempt == null || !attempt.isExpendable());
+				}
+			}.execute(slice, parsed, deadline);
+		} catch (IOException e) {
+			if (pool == null && (attempt == null || !attempt.isExpendable())) {
+				cancel();
+			}
+			throw e;
+		}
+	}
+
+	private void executeWorker(final DocumentSlice slice, Watchdog watchdog)
+			throws IOException, InterruptedException {
+		final SennaWorker worker = borrowWorker();
+		try {
+			if (watchdog.start(new Runnable() {
+				@Override
+				public void run() {
+					worker.destroy();
+				}
+			})) {
+				try {
+					worker.execute(slice, processOptions, watchdog);
+				} finally {
+					watchdog.stop();
+				}
+			}
+		} finally {
+			releaseWorker(worker);
+		}
+	}
+
+	/**
+	 * Borrows a worker from the pool, which is destroyed if this execution is
+	 * cancelled before it is released.
+	 *
+	 * @throws IOException
+	 *             if the execution has been cancelled
+	 */
+	SennaWorker borrowWorker() throws IOException, InterruptedException {
+		SennaWorker worker = pool.borrow(this);
+		borrowedWorkers.add(worker);
+		// cancel() sets the flag before it destroys the borrowed workers
+		if (cancelled) {
+			worker.destroy();
+			releaseWorker(worker);
+			throw new IOException("SENNA execution cancelled");
+		}
+		return worker;
+	}
+
+	void releaseWorker(SennaWorker worker) {
+		borrowedWorkers.remove(worker);
+		pool.release(worker);
+	}
+
+	/**
+	 * @param attempt
+	 *            the attempt of a raced part, null if the process is not raced
+	 */
+	private void executeProcess(final DocumentSlice slice, final Watchdog watchdog, Partition.Attempt attempt)
+			throws IOException, InterruptedException, ExecutionException {
+		try {
+			if (cancelled) {
+				throw new IOException("SENNA execution cancelled");
+			}
+			final Process process = processBuilder.start();
+			currentProcesses.add(process);
+			ProcessSizer.processStarted(processBuilder.command());
+			// cancel() sets the flag before it destroys the current processes
+			if (cancelled) {
+				process.destroy();
+				if (currentProcesses.remove(process)) {
+					ProcessSizer.processStopped(processBuilder.command());
+				}
+				throw new IOException("SENNA execution cancelled");
+			}
+			if (attempt != null) {
+				attempt.started(process);
+			}
+			if (!watchdog.start(new Runnable() {
+				@Override
+				public void run() {
+					process.destroy();
+				}
+			})) {
+				// stopped, the sentences are skipped
+				process.destroy();
+				if (currentProcesses.remove(process)) {
+					ProcessSizer.processStopped(processBuilder.command());
+				}
+				return;
+			}
+
+			IoThreads.executor().submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					OutputStream outputStream = process.getOutputStream();
+					new SennaInput().write(slice.getSennaText(), outputStream);
+					outputStream.close();
+					return null;
+				}
+			});
+
+			IoThreads.executor().submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					InputStream errorStream = process.getErrorStream();
+					Util.copy(errorStream, Senna.this.errorStream);
+					errorStream.close();
+					return null;
+				}
+			});
+
+			// the model is loaded once the first sentence is answered
+			SentenceListener measured = new SentenceListener() {
+				private boolean first = true;
+
+				@Override
+				public void sentenceCompleted(Sentence sentence) {
+					if (first) {
+						first = false;
+						ProcessSizer.measure(processBuilder.command(), process);
+					}
+					watchdog.sentenceCompleted(sentence);
+				}
+			};
+			try {
+				InputStream inputStream = process.getInputStream();
+				// an early end of the output means the process died, see ResumableExecution
+				ResultParser.parse(slice.getSentences(), new ColumnReader(inputStream, SennaInput.CHARSET),
+						processOptions, measured);
+				inputStream.close();
+
+				process.waitFor();
+			} catch (IOException | RuntimeException e) {
+				process.destroy();
+				throw e;
+			} finally {
+				watchdog.stop();
+				if (currentProcesses.remove(process)) {
+					ProcessSizer.processStopped(processBuilder.command());
+				}
+			}
+		} catch (InterruptedException e) {
+			cancel();
+			throw e;
+		}
+	}
+
+	public void cancel() {
+		cancelled = true;
+		if (taskGroups != null) {
+			for (Senna taskGroup : taskGroups) {
+				taskGroup.cancel();
+			}
+		}
+		// the shared threads serve other instances, their tasks end with the processes
+		if (executor != IoThreads.executor()) {
+			executor.shutdownNow();
+		}
+		for (Process process : currentProcesses) {
+			if (process.isAlive()) {
+				process.destroy();
+			}
+		}
+		// released to the pool as broken workers
+		for (SennaWorker worker : borrowedWorkers) {
+			worker.destroy();
+		}
+	}
+
+}
@@ -3,23 +3,60 @@ package senna;
 import java.io.File;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import senna.mapping.MultiToken;
 
 public class SennaBuilder {
 
+	/**
+	 * Tagging, SRL and syntax tree parsing, see {@link #withTaskGroups(boolean)}.
+	 */
+	public static final List<Set<Option<? extends MultiToken>>> DEFAULT_TASK_GROUPS = Collections
+			.unmodifiableList(Arrays.<Set<Option<? extends MultiToken>>>asList(
+					new HashSet<Option<? extends MultiToken>>(
+							Arrays.<Option<? extends MultiToken>>asList(Option.POS, Option.CHK, Option.NER)),
+					Collections.<Option<? extends MultiToken>>singleton(Option.SRL),
+					Collections.<Option<? extends MultiToken>>singleton(Option.PSG)));
+
+	/**
+	 * Chooses the number of processes on every build from the CPUs and memory
+	 * available to the JVM, as limited by its container, and the measured memory
+	 * of a SENNA process.
+	 */
+	public static final int AUTO_PROCESSES = 0;
+
+	private static final List<Option<? extends MultiToken>> OPTIONS = Arrays
+			.<Option<? extends MultiToken>>asList(Option.POS, Option.CHK, Option.NER, Option.SRL, Option.PSG);
+	private static final List<CommandOption> TASK_COMMAND_OPTIONS = Arrays.asList(CommandOption.POS,
+			CommandOption.CHK, CommandOption.NER, CommandOption.SRL, CommandOption.PSG);
+
 	private ExecutorService executor;
+	private SennaPools pools;
+	private CostEstimator costEstimator = new SimpleCostEstimator();
+	private ResultCache resultCache;
+	private List<? extends Collection<Option<? extends MultiToken>>> taskGroups;
 	private File sennaFile;
 	private Set<CommandOption> commandOptions = new HashSet<>();
 	private Set<Option<? extends MultiToken>> processOptions = new HashSet<>();
 	private Set<Option<? extends MultiToken>> parseOptions = new HashSet<>();
 	private Integer processes;
+	// task groups split the automatic number of processes among them
+	private int autoGroups = 1;
 	private OutputStream errorStream = System.err;
+	private long documentTimeout;
+	private long executionTimeout;
+	private long sentenceTimeout;
+	private TimeoutPolicy timeoutPolicy = TimeoutPolicy.FAIL;
 
 	private static enum CommandOption {
 
@@ -90,6 +127,11 @@ public class SennaBuilder {
 
 	}
 
+	/**
+	 * @param processes
+	 *            the number of parallel processes, null or
+	 *            {@link #AUTO_PROCESSES} to choose it automatically
+	 */
 	public SennaBuilder(File sennaFile, Integer processes) {
 		this.sennaFile = sennaFile;
 		this.processes = processes;
@@ -110,8 +152,75 @@ public class SennaBuilder {
 		parseOptions.retainAll(processOptions);
 		boolean bracketTags = commandOptions.contains(CommandOption.BRACKET_TAGS)
 				&& !commandOptions.contains(CommandOption.IOB_TAGS);
-		ExecutorService executor = this.executor != null ? this.executor : Executors.newCachedThreadPool();
-		return new Senna(executor, processes, errorStream, processBuilder, processOptions, parseOptions, bracketTags);
+		ExecutorService executor = this.executor != null ? this.executor : IoThreads.executor();
+		boolean auto = isAuto();
+		int processes = auto ? Math.max(1, ProcessSizer.processes(command) / autoGroups) : this.processes;
+		List<Senna> taskGroups = buildTaskGroups(executor);
+		// a user verbs file is read sequentially by each process, so it cannot be shared across documents;
+		// an automatically sized copy only resizes the pool, it keeps the capacity other copies need
+		SennaPool pool = pools != null && taskGroups == null && !commandOptions.contains(CommandOption.USER_VERBS)
+				? pools.getPool(processBuilder, errorStream, auto ? 1 : processes)
+				: null;
+		if (pool != null && auto) {
+			pool.resize(processes);
+		}
+		// results depend on the content of a user verbs file, which may change between executions
+		ResultCache resultCache = !commandOptions.contains(CommandOption.USER_VERBS) ? this.resultCache : null;
+		return new Senna(executor, processes, errorStream, processBuilder, pool, costEstimator, resultCache,
+				taskGroups, processOptions, parseOptions, bracketTags, documentTimeout, executionTimeout, sentenceTimeout,
+				timeoutPolicy);
+	}
+
+	/**
+	 * @return a {@link Senna} for each group with requested options, null if they
+	 *         are all in one group
+	 */
+	private List<Senna> buildTaskGroups(ExecutorService executor) {
+		if (taskGroups == null) {
+			return null;
+		}
+		// groups are ordered by their first option, so the columns are merged in the usual order
+		Map<Integer, Set<Option<? extends MultiToken>>> groups = new LinkedHashMap<>();
+		for (Option<? extends MultiToken> option : OPTIONS) {
+			if (processOptions.contains(option)) {
+				int group = taskGroups.size() + OPTIONS.indexOf(option);
+				for (int i = 0; i < taskGroups.size(); i++) {
+					if (taskGroups.get(i).contains(option)) {
+						group = i;
+						break;
+					}
+				}
+				if (!groups.containsKey(group)) {
+					groups.put(group, new HashSet<Option<? extends MultiToken>>());
+				}
+				groups.get(group).add(option);
+			}
+		}
+		if (groups.size() < 2) {
+			return null;
+		}
+		List<Senna> sennas = new ArrayList<>();
+		for (Set<Option<? extends MultiToken>> group : groups.values()) {
+			SennaBuilder builder = new SennaBuilder(sennaFile, processes).withExecutor(executor).withPools(pools)
+					.withErrorStream(errorStream).withCostEstimator(costEstimator);
+			builder.commandOptions.addAll(commandOptions);
+			builder.commandOptions.removeAll(TASK_COMMAND_OPTIONS);
+			if (!group.contains(Option.SRL)) {
+				builder.commandOptions.remove(CommandOption.POS_VERBS);
+				builder.commandOptions.remove(CommandOption.USER_VERBS);
+			}
+			for (Option<? extends MultiToken> option : group) {
+				builder.commandOptions.add(TASK_COMMAND_OPTIONS.get(OPTIONS.indexOf(option)));
+			}
+			builder.processOptions.addAll(group);
+			builder.autoGroups = groups.size();
+			sennas.add(builder.build());
+		}
+		return sennas;
+	}
+
+	private boolean isAuto() {
+		return processes == null || processes <= AUTO_PROCESSES;
 	}
 
 	public SennaBuilder withErrorStream(OutputStream errorStream) {
@@ -124,6 +233,90 @@ public class SennaBuilder {
 		return this;
 	}
 
+	/**
+	 * Keeps the processes running in the given pools between executions. Not
+	 * used with {@link #withUserVerbs(File)}, since each process reads the verbs
+	 * file from its start; task groups use the pools for each of their groups.
+	 */
+	public SennaBuilder withPools(SennaPools pools) {
+		this.pools = pools;
+		return this;
+	}
+
+	/**
+	 * Replays the results of sentences that were processed before with the same
+	 * options and only sends the other sentences to SENNA. Not used with user
+	 * verbs.
+	 */
+	public SennaBuilder withResultCache(ResultCache resultCache) {
+		this.resultCache = resultCache;
+		return this;
+	}
+
+	/**
+	 * Runs tagging, SRL and syntax tree parsing in separate processes at the same
+	 * time, see {@link #withTaskGroups(List)}.
+	 */
+	public SennaBuilder withTaskGroups(boolean taskGroups) {
+		return withTaskGroups(taskGroups ? DEFAULT_TASK_GROUPS : null);
+	}
+
+	/**
+	 * Runs the requested options of each group in separate processes at the same
+	 * time, each with the given number of processes, and merges their columns by
+	 * token position. A sentence is completed when all groups have answered it, so
+	 * it takes about as long as the slowest group instead of all options together.
+	 * Options not in any group get their own group.
+	 */
+	public SennaBuilder withTaskGroups(List<? extends Collection<Option<? extends MultiToken>>> taskGroups) {
+		this.taskGroups = taskGroups;
+		return this;
+	}
+
+	/**
+	 * Limits the time an execution of a document may take, see
+	 * {@link #withTimeoutPolicy(TimeoutPolicy)}. 0 for no limit.
+	 */
+	public SennaBuilder withDocumentTimeout(long timeout, TimeUnit unit) {
+		this.documentTimeout = unit.toNanos(timeout);
+		return this;
+	}
+
+	/**
+	 * Limits the time an execution may take as a whole, however many documents
+	 * it has, see {@link #withTimeoutPolicy(TimeoutPolicy)}. The smaller limit
+	 * applies if there is a document timeout as well. 0 for no limit.
+	 */
+	public SennaBuilder withExecutionTimeout(long timeout, TimeUnit unit) {
+		this.executionTimeout = unit.toNanos(timeout);
+		return this;
+	}
+
+	/**
+	 * Limits the time a process may take for a sentence, including loading the
+	 * model for the first sentence of a new process, see
+	 * {@link #withTimeoutPolicy(TimeoutPolicy)}. 0 for no limit.
+	 */
+	public SennaBuilder withSentenceTimeout(long timeout, TimeUnit unit) {
+		this.sentenceTimeout = unit.toNanos(timeout);
+		return this;
+	}
+
+	/**
+	 * Chooses what an execution does when a time limit has passed,
+	 * {@link TimeoutPolicy#FAIL} by default. Executions with time limits do not
+	 * race slow parts of a document with speculative processes.
+	 */
+	public SennaBuilder withTimeoutPolicy(TimeoutPolicy timeoutPolicy) {
+		this.timeoutPolicy = timeoutPolicy;
+		return this;
+	}
+
+	public SennaBuilder withCostEstimator(CostEstimator costEstimator) {
+		this.costEstimator = costEstimator;
+		return this;
+	}
+
 	public SennaBuilder withIobTags(boolean iobTags) {
 		if (iobTags) {
 			commandOptions.add(CommandOption.IOB_TAGS);
@@ -0,0 +1,50 @@
+package senna;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Encodes SENNA text into a reusable buffer and writes it to the stdin of a
+ * process in large chunks, without the copy of the whole text a
+ * {@link String#getBytes()} would make. Uses the platform charset like
+ * {@link String#getBytes()}; the output is read back with {@link #CHARSET} as
+ * well. Not thread safe.
+ */
+class SennaInput {
+
+	static final Charset CHARSET = Charset.defaultCharset();
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final CharsetEncoder encoder = CHARSET.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	void write(CharSequence text, OutputStream out) throws IOException {
+		CharBuffer in = text instanceof CharBuffer ? ((CharBuffer) text).duplicate() : CharBuffer.wrap(text);
+		encoder.reset();
+		CoderResult result;
+		do {
+			result = encoder.encode(in, buffer, true);
+			flush(out);
+		} while (result.isOverflow());
+		while (encoder.flush(buffer).isOverflow()) {
+			flush(out);
+		}
+		flush(out);
+	}
+
+	private void flush(OutputStream out) throws IOException {
+		if (buffer.position() > 0) {
+			out.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+			buffer.clear();
+		}
+	}
+
+}
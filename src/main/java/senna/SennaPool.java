@@ -0,0 +1,222 @@
+package senna;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Warm {@link SennaWorker}s for one SENNA command line. Workers are started on
+ * demand up to the pool's capacity and handed out again after use, so the
+ * model is only loaded once per worker instead of once per document. When
+ * several callers wait for a worker, the one holding the fewest workers is
+ * served first, so a caller with many parallel tasks cannot starve the others.
+ */
+public class SennaPool {
+
+	private final ProcessBuilder processBuilder;
+	private final OutputStream errorStream;
+	private final SennaPools pools;
+	private final Object lock;
+
+	private final Deque<SennaWorker> idleWorkers = new ArrayDeque<>();
+	private final Map<SennaWorker, Object> busyWorkers = new HashMap<>();
+	private final Map<Object, Integer> borrowedByCaller = new HashMap<>();
+	private final List<Object> waitingCallers = new ArrayList<>();
+	private int startingWorkers;
+	private int capacity;
+	// asked for by callers with a fixed number of processes, see resize()
+	private int minCapacity;
+	private boolean shutdown;
+
+	protected SennaPool(ProcessBuilder processBuilder, OutputStream errorStream, int capacity) {
+		this(processBuilder, errorStream, capacity, null);
+	}
+
+	/**
+	 * Creates a pool whose workers count towards the process limit of the given
+	 * pools, which also serve as the lock of all their pools.
+	 */
+	SennaPool(ProcessBuilder processBuilder, OutputStream errorStream, int capacity, SennaPools pools) {
+		this.processBuilder = processBuilder;
+		this.errorStream = errorStream;
+		this.capacity = capacity;
+		this.minCapacity = capacity;
+		this.pools = pools;
+		this.lock = pools != null ? pools : this;
+	}
+
+	public void ensureCapacity(int capacity) {
+		synchronized (lock) {
+			minCapacity = Math.max(minCapacity, capacity);
+			if (capacity > this.capacity) {
+				this.capacity = capacity;
+				lock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Sets the capacity chosen for automatically sized executions, also below
+	 * the current one, but not below a capacity asked for by
+	 * {@link #ensureCapacity(int)}, so other users of a shared pool keep their
+	 * workers. Idle workers beyond it are stopped now, busy ones when they are
+	 * released.
+	 */
+	public void resize(int capacity) {
+		synchronized (lock) {
+			this.capacity = Math.max(capacity, minCapacity);
+			while (size() > this.capacity) {
+				if (!stopIdleWorker()) {
+					break;
+				}
+			}
+			lock.notifyAll();
+		}
+	}
+
+	public SennaWorker borrow() throws IOException, InterruptedException {
+		return borrow(null);
+	}
+
+	/**
+	 * @param caller
+	 *            identifies the execution borrowing the worker, for the fair
+	 *            order among waiting callers
+	 */
+	public SennaWorker borrow(Object caller) throws IOException, InterruptedException {
+		synchronized (lock) {
+			waitingCallers.add(caller);
+			try {
+				while (true) {
+					if (shutdown) {
+						throw new IOException("senna pool is shut down");
+					}
+					if (isNext(caller)) {
+						SennaWorker worker = idleWorkers.pollFirst();
+						if (worker != null) {
+							if (worker.isHealthy()) {
+								lend(worker, caller);
+								return worker;
+							}
+							worker.destroy();
+							continue;
+						}
+						if (busyWorkers.size() + startingWorkers < capacity
+								&& (pools == null || pools.reserveProcess(this))) {
+							break;
+						}
+					}
+					lock.wait();
+				}
+			} finally {
+				waitingCallers.remove(caller);
+				lock.notifyAll();
+			}
+			startingWorkers++;
+		}
+		SennaWorker worker = null;
+		try {
+			worker = new SennaWorker(processBuilder, errorStream);
+			return worker;
+		} finally {
+			synchronized (lock) {
+				startingWorkers--;
+				if (worker != null) {
+					lend(worker, caller);
+				} else {
+					lock.notifyAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return true if the caller holds the fewest workers of the waiting callers
+	 *         and has waited longest among those
+	 */
+	private boolean isNext(Object caller) {
+		int borrowed = borrowed(caller);
+		boolean earlier = true;
+		for (Object waitingCaller : waitingCallers) {
+			if (waitingCaller == caller) {
+				earlier = false;
+				continue;
+			}
+			int waitingBorrowed = borrowed(waitingCaller);
+			if (waitingBorrowed < borrowed || (earlier && waitingBorrowed == borrowed)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int borrowed(Object caller) {
+		Integer borrowed = borrowedByCaller.get(caller);
+		return borrowed != null ? borrowed : 0;
+	}
+
+	private void lend(SennaWorker worker, Object caller) {
+		busyWorkers.put(worker, caller);
+		borrowedByCaller.put(caller, borrowed(caller) + 1);
+	}
+
+	public void release(SennaWorker worker) {
+		synchronized (lock) {
+			Object caller = busyWorkers.remove(worker);
+			int borrowed = borrowed(caller) - 1;
+			if (borrowed > 0) {
+				borrowedByCaller.put(caller, borrowed);
+			} else {
+				borrowedByCaller.remove(caller);
+			}
+			if (!shutdown && worker.isHealthy() && size() < capacity) {
+				idleWorkers.addFirst(worker);
+			} else {
+				worker.destroy();
+			}
+			lock.notifyAll();
+		}
+	}
+
+	public int size() {
+		synchronized (lock) {
+			return idleWorkers.size() + busyWorkers.size() + startingWorkers;
+		}
+	}
+
+	/**
+	 * Stops an idle worker, so another pool can start one within the process
+	 * limit. Called with the lock held.
+	 *
+	 * @return true if there was an idle worker
+	 */
+	boolean stopIdleWorker() {
+		SennaWorker worker = idleWorkers.pollLast();
+		if (worker == null) {
+			return false;
+		}
+		worker.destroy();
+		return true;
+	}
+
+	public void shutdown() {
+		Set<SennaWorker> workers = new HashSet<>();
+		synchronized (lock) {
+			shutdown = true;
+			workers.addAll(idleWorkers);
+			idleWorkers.clear();
+			lock.notifyAll();
+		}
+		for (SennaWorker worker : workers) {
+			worker.shutdown();
+		}
+	}
+
+}
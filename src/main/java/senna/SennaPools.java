@@ -0,0 +1,162 @@
+package senna;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link SennaPool}s keyed by the effective SENNA command line, so that every
+ * {@link Senna} built with the same options shares the same warm workers. The
+ * total number of workers of all pools can be limited; idle workers of other
+ * command lines are stopped to stay within the limit.
+ */
+public class SennaPools {
+
+	private static SennaPools shared;
+	private static int sharedReferences;
+
+	private final Map<List<String>, SennaPool> pools = new HashMap<>();
+	private final Map<Object, Integer> limits = new IdentityHashMap<>();
+	private int maxProcesses = Integer.MAX_VALUE;
+	private boolean shutdown;
+
+	/**
+	 * @return the pools shared by the whole JVM, which are shut down when
+	 *         {@link #release()} has been called as often as this method
+	 */
+	public static SennaPools acquireShared() {
+		synchronized (SennaPools.class) {
+			if (shared == null) {
+				shared = new SennaPools();
+			}
+			sharedReferences++;
+			return shared;
+		}
+	}
+
+	/**
+	 * Releases pools returned by {@link #acquireShared()} like
+	 * {@link #release()}, and drops the process limit of the holder.
+	 */
+	public void release(Object holder) {
+		limitProcesses(holder, 0);
+		release();
+	}
+
+	/**
+	 * Releases pools returned by {@link #acquireShared()}, and shuts them down
+	 * once every user has released them. Other pools are shut down right away.
+	 */
+	public void release() {
+		synchronized (SennaPools.class) {
+			if (this == shared) {
+				if (--sharedReferences > 0) {
+					return;
+				}
+				shared = null;
+			}
+		}
+		shutdown();
+	}
+
+	protected SennaPool getPool(ProcessBuilder processBuilder, OutputStream errorStream, int capacity) {
+		synchronized (this) {
+			if (shutdown) {
+				throw new IllegalStateException("senna pools are shut down");
+			}
+			List<String> key = new ArrayList<>(processBuilder.command());
+			SennaPool pool = pools.get(key);
+			if (pool == null) {
+				pool = new SennaPool(processBuilder, errorStream, capacity, this);
+				pools.put(key, pool);
+			} else {
+				pool.ensureCapacity(capacity);
+			}
+			return pool;
+		}
+	}
+
+	/**
+	 * Limits the number of workers of all pools, see
+	 * {@link #limitProcesses(Object, int)}.
+	 */
+	public void limitProcesses(int maxProcesses) {
+		limitProcesses(this, maxProcesses);
+	}
+
+	/**
+	 * Sets the limit of the number of workers of all pools wanted by a holder of
+	 * these pools, 0 to drop it. The smallest limit of the current holders
+	 * applies, so it goes up again when the holder with the smallest one drops
+	 * its limit or releases the pools.
+	 */
+	public void limitProcesses(Object holder, int maxProcesses) {
+		synchronized (this) {
+			if (maxProcesses > 0) {
+				limits.put(holder, maxProcesses);
+			} else {
+				limits.remove(holder);
+			}
+			int limit = Integer.MAX_VALUE;
+			for (int holderLimit : limits.values()) {
+				limit = Math.min(limit, holderLimit);
+			}
+			if (limit > this.maxProcesses) {
+				// callers waiting in borrow() may start a worker now
+				notifyAll();
+			}
+			this.maxProcesses = limit;
+		}
+	}
+
+	public int getMaxProcesses() {
+		synchronized (this) {
+			return maxProcesses;
+		}
+	}
+
+	/**
+	 * @return the number of workers of all pools
+	 */
+	public int size() {
+		synchronized (this) {
+			int size = 0;
+			for (SennaPool pool : pools.values()) {
+				size += pool.size();
+			}
+			return size;
+		}
+	}
+
+	/**
+	 * Checks if the pool may start another worker, stopping an idle worker of
+	 * another pool if needed. Called with the lock of the pools held.
+	 */
+	boolean reserveProcess(SennaPool pool) {
+		if (size() < maxProcesses) {
+			return true;
+		}
+		for (SennaPool other : pools.values()) {
+			if (other != pool && other.stopIdleWorker()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public void shutdown() {
+		List<SennaPool> pools;
+		synchronized (this) {
+			shutdown = true;
+			pools = new ArrayList<>(this.pools.values());
+			this.pools.clear();
+		}
+		for (SennaPool pool : pools) {
+			pool.shutdown();
+		}
+	}
+
+}
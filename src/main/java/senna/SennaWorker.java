@@ -0,0 +1,150 @@
+package senna;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import senna.mapping.ColumnReader;
+import senna.mapping.Document;
+import senna.mapping.DocumentBuilder;
+import senna.mapping.DocumentSlice;
+import senna.mapping.MultiToken;
+import senna.mapping.ResultParser;
+import senna.mapping.Sentence;
+import senna.mapping.SentenceListener;
+
+/**
+ * A long-lived SENNA process. Sentences are written line by line to STDIN and
+ * SENNA answers each of them with a block of token lines terminated by an empty
+ * line, so one process (and its loaded model) can serve many documents.
+ */
+public class SennaWorker {
+
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+	private final List<String> command;
+	private final Process process;
+	private final OutputStream inputStream;
+	private final ColumnReader outputReader;
+	private final SennaInput input = new SennaInput();
+
+	private volatile boolean broken;
+	private boolean measured;
+	private final AtomicBoolean running = new AtomicBoolean(true);
+
+	protected SennaWorker(ProcessBuilder processBuilder, final OutputStream errorStream) throws IOException {
+		this.command = processBuilder.command();
+		this.process = processBuilder.start();
+		ProcessSizer.processStarted(command);
+		this.inputStream = process.getOutputStream();
+		this.outputReader = new ColumnReader(process.getInputStream(), SennaInput.CHARSET);
+		IoThreads.executor().submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					InputStream processErrorStream = process.getErrorStream();
+					Util.copy(processErrorStream, errorStream);
+					processErrorStream.close();
+				} catch (IOException e) {
+					// process has gone, nothing left to copy
+				}
+			}
+		});
+	}
+
+	public void execute(final Document document, Collection<Option<? extends MultiToken>> options)
+			throws IOException, InterruptedException {
+		execute(document, options, null);
+	}
+
+	public void execute(final Document document, Collection<Option<? extends MultiToken>> options,
+			SentenceListener listener) throws IOException, InterruptedException {
+		execute(document.getSentences(), document.getSennaText(), options, listener);
+	}
+
+	/**
+	 * Parses the results straight into the sentences of the slice's document.
+	 */
+	public void execute(final DocumentSlice slice, Collection<Option<? extends MultiToken>> options,
+			SentenceListener listener) throws IOException, InterruptedException {
+		execute(slice.getSentences(), slice.getSennaText(), options, listener);
+	}
+
+	protected void execute(List<Sentence> sentences, final CharSequence sennaText,
+			Collection<Option<? extends MultiToken>> options, SentenceListener listener)
+			throws IOException, InterruptedException {
+		if (sentences.isEmpty()) {
+			return;
+		}
+		if (!isHealthy()) {
+			throw new IOException("senna worker is not alive");
+		}
+		try {
+			Future<Void> write = IoThreads.executor().submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					input.write(sennaText, inputStream);
+					input.write(DocumentBuilder.SENNA_SENTENCESPLIT, inputStream);
+					inputStream.flush();
+					return null;
+				}
+			});
+			ResultParser.parse(sentences, outputReader, options, listener);
+			write.get();
+			if (!measured) {
+				// the model is loaded by now
+				measured = true;
+				ProcessSizer.measure(command, process);
+			}
+		} catch (ExecutionException e) {
+			broken = true;
+			throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+		} catch (IOException | RuntimeException e) {
+			broken = true;
+			throw e;
+		} catch (InterruptedException e) {
+			broken = true;
+			throw e;
+		}
+	}
+
+	public boolean isHealthy() {
+		return !broken && process.isAlive();
+	}
+
+	public void shutdown() {
+		broken = true;
+		try {
+			inputStream.close();
+			if (!process.waitFor(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				process.destroy();
+			}
+		} catch (IOException e) {
+			process.destroy();
+		} catch (InterruptedException e) {
+			process.destroy();
+			Thread.currentThread().interrupt();
+		}
+		stopped();
+	}
+
+	public void destroy() {
+		broken = true;
+		process.destroy();
+		stopped();
+	}
+
+	private void stopped() {
+		if (running.getAndSet(false)) {
+			ProcessSizer.processStopped(command);
+		}
+	}
+
+}
@@ -0,0 +1,190 @@
+package senna;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import senna.mapping.Document;
+import senna.mapping.MultiToken;
+import senna.mapping.ResultParser;
+import senna.mapping.Sentence;
+import senna.mapping.SentenceListener;
+import senna.mapping.SentenceStatus;
+
+/**
+ * Collects parsed sentences from any number of worker threads and hands them in
+ * document order to the thread that called {@link Senna#execute}, which parses
+ * the multi-token annotations and notifies the caller's listener. When the
+ * {@link Deadline} of the execution stops it, the sentences that were not
+ * completed are marked {@link SentenceStatus#SKIPPED} and handed on as well.
+ */
+class SentenceDispatcher implements SentenceListener {
+
+	private final Thread owner = Thread.currentThread();
+	private final SentenceListener listener;
+	private final Collection<Option<? extends MultiToken>> parseOptions;
+	private final boolean bracketTags;
+	private final Deadline deadline;
+	private final boolean root;
+
+	private final Map<Sentence, Integer> indexes = new IdentityHashMap<>();
+	private final Sentence[] sentences;
+	private final Sentence[] completed;
+	private int delivered;
+	private boolean delivering;
+	private Throwable failure;
+
+	SentenceDispatcher(List<Document> documents, SentenceListener listener,
+			Collection<Option<? extends MultiToken>> parseOptions, boolean bracketTags, Deadline deadline) {
+		this.listener = listener;
+		this.parseOptions = parseOptions;
+		this.bracketTags = bracketTags;
+		this.deadline = deadline;
+		List<Sentence> sentences = new ArrayList<>();
+		for (Document document : documents) {
+			for (Sentence sentence : document.getSentences()) {
+				indexes.put(sentence, indexes.size());
+				sentences.add(sentence);
+			}
+		}
+		this.sentences = sentences.toArray(new Sentence[sentences.size()]);
+		this.completed = new Sentence[indexes.size()];
+		this.root = deadline.register(this);
+	}
+
+	Deadline getDeadline() {
+		return deadline;
+	}
+
+	@Override
+	public void sentenceCompleted(Sentence sentence) {
+		synchronized (this) {
+			Integer index = indexes.get(sentence);
+			if (index == null || index < delivered || completed[index] != null) {
+				return;
+			}
+			completed[index] = sentence;
+			notifyAll();
+		}
+		if (Thread.currentThread() == owner) {
+			deliverCompleted();
+		}
+	}
+
+	public synchronized void fail(Throwable throwable) {
+		if (failure == null) {
+			failure = throwable;
+		}
+		notifyAll();
+	}
+
+	synchronized void wake() {
+		notifyAll();
+	}
+
+	/**
+	 * Waits for all sentences or, once the execution is stopped, for the threads
+	 * working in them and skips the rest.
+	 */
+	public void await() throws InterruptedException, ExecutionException {
+		while (!deadline.isStopped()) {
+			deliverCompleted();
+			synchronized (this) {
+				if (failure != null) {
+					throw new ExecutionException(failure);
+				}
+				if (delivered == completed.length) {
+					return;
+				}
+				if (completed[delivered] == null && !deadline.isStopped()) {
+					long remaining = deadline.remainingNanos();
+					if (remaining <= 0) {
+						break;
+					} else if (remaining == Long.MAX_VALUE) {
+						wait();
+					} else {
+						TimeUnit.NANOSECONDS.timedWait(this, remaining);
+					}
+				}
+			}
+		}
+		deadline.stop(new TimeoutException("document timeout has passed"));
+		// the first dispatcher skips the sentences of all task groups
+		if (root) {
+			deadline.awaitWriters();
+			skipRemaining();
+		}
+	}
+
+	private void deliverCompleted() {
+		// once stopped, the remaining sentences are delivered by skipRemaining
+		if (!deadline.enter()) {
+			return;
+		}
+		try {
+			List<Sentence> sentences = new ArrayList<>();
+			synchronized (this) {
+				if (delivering) {
+					return;
+				}
+				while (delivered < completed.length && completed[delivered] != null) {
+					sentences.add(completed[delivered]);
+					completed[delivered] = null;
+					delivered++;
+				}
+				delivering = !sentences.isEmpty();
+			}
+			try {
+				deliver(sentences);
+			} finally {
+				synchronized (this) {
+					delivering = false;
+				}
+			}
+		} finally {
+			deadline.exit();
+		}
+	}
+
+	private void deliver(List<Sentence> sentences) {
+		for (Sentence sentence : sentences) {
+			// a failed or skipped sentence may have the tags of some tokens only
+			if (sentence.getStatus() != SentenceStatus.FAILED && sentence.getStatus() != SentenceStatus.SKIPPED) {
+				for (Option<? extends MultiToken> option : parseOptions) {
+					ResultParser.parseAnnotations(sentence, option, bracketTags);
+				}
+			}
+			if (listener != null) {
+				listener.sentenceCompleted(sentence);
+			}
+		}
+	}
+
+	/**
+	 * Hands on the sentences not delivered yet, once no other thread works in
+	 * them.
+	 */
+	private void skipRemaining() {
+		List<Sentence> remaining = new ArrayList<>();
+		synchronized (this) {
+			for (int i = delivered; i < completed.length; i++) {
+				Sentence sentence = completed[i];
+				if (sentence == null) {
+					sentence = sentences[i];
+					sentence.clearSennaTokens();
+					sentence.setStatus(SentenceStatus.SKIPPED);
+				}
+				remaining.add(sentence);
+				completed[i] = null;
+			}
+			delivered = completed.length;
+		}
+		deliver(remaining);
+	}
+
+}
@@ -0,0 +1,142 @@
+package senna;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import senna.mapping.DocumentSlice;
+import senna.mapping.MultiToken;
+import senna.mapping.SentenceListener;
+
+/**
+ * Feeds small batches of sentences of similar estimated cost to whichever
+ * pooled worker has finished its previous batch, instead of assigning one fixed
+ * slice per process. Results are parsed into the sentences as they arrive and
+ * handed on in sentence order by the {@link SentenceDispatcher}.
+ */
+class SentenceScheduler {
+
+	private static final int BATCHES_PER_WORKER = 8;
+
+	private final DocumentSlice slice;
+	private final SennaPool pool;
+	private final Senna senna;
+	private final Collection<Option<? extends MultiToken>> options;
+
+	private final List<int[]> batches = new ArrayList<>();
+	private final AtomicInteger nextBatch = new AtomicInteger();
+	private volatile boolean cancelled;
+
+	SentenceScheduler(DocumentSlice slice, SennaPool pool, Collection<Option<? extends MultiToken>> options,
+			Senna senna, int workers) {
+		this.slice = slice;
+		this.pool = pool;
+		this.senna = senna;
+		this.options = options;
+
+		int start = 0;
+		for (Integer count : senna.splitIntoParts(slice.getSentences(), workers * BATCHES_PER_WORKER)) {
+			if (count > 0) {
+				batches.add(new int[] { start, start + count - 1 });
+				start += count;
+			}
+		}
+	}
+
+	void execute(ExecutorService executor, int workers, final SentenceListener parsed,
+			final SentenceDispatcher dispatcher) throws InterruptedException, ExecutionException {
+		List<Future<Void>> feeders = new ArrayList<>();
+		for (int i = 0; i < Math.min(workers, batches.size()); i++) {
+			feeders.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					feed(parsed, dispatcher);
+					return null;
+				}
+			}));
+		}
+		try {
+			dispatcher.await();
+		} finally {
+			cancelled = true;
+			// once stopped, the workers have been destroyed and the sentences skipped
+			if (!dispatcher.getDeadline().isStopped()) {
+				for (Future<Void> feeder : feeders) {
+					feeder.get();
+				}
+			}
+		}
+	}
+
+	private void feed(SentenceListener parsed, SentenceDispatcher dispatcher) {
+		Deadline deadline = dispatcher.getDeadline();
+		Feeder feeder = new Feeder();
+		try {
+			try {
+				int index;
+				while (!cancelled && !deadline.isStopped() && (index = nextBatch.getAndIncrement()) < batches.size()) {
+					int[] range = batches.get(index);
+					feeder.execute(slice.slice(range[0], range[1] + 1), parsed, deadline);
+				}
+			} finally {
+				feeder.release();
+			}
+		} catch (Exception e) {
+			cancelled = true;
+			dispatcher.fail(e);
+		}
+	}
+
+	/**
+	 * Executes batches on one worker, and resumes a batch on a new worker when the
+	 * worker's process dies.
+	 */
+	private class Feeder extends ResumableExecution {
+
+		private SennaWorker worker;
+
+		@Override
+		protected void executeOnce(DocumentSlice batch, Watchdog watchdog)
+				throws IOException, InterruptedException {
+			if (worker != null && !worker.isHealthy()) {
+				release();
+			}
+			if (worker == null) {
+				worker = senna.borrowWorker();
+			}
+			final SennaWorker current = worker;
+			if (watchdog.start(new Runnable() {
+				@Override
+				public void run() {
+					current.destroy();
+				}
+			})) {
+				try {
+					worker.execute(batch, options, watchdog);
+				} finally {
+					watchdog.stop();
+				}
+			}
+		}
+
+		@Override
+		protected boolean mayResume() {
+			return !cancelled;
+		}
+
+		private void release() {
+			if (worker != null) {
+				senna.releaseWorker(worker);
+				worker = null;
+			}
+		}
+
+	}
+
+}
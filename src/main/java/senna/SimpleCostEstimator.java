@@ -0,0 +1,85 @@
+package senna;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import senna.mapping.MultiToken;
+import senna.mapping.Sentence;
+
+/**
+ * Linear cost model over the sentence length and token count. Every enabled
+ * option adds its own weight per token; SRL is additionally weighted by the
+ * squared token count, as it labels the whole sentence once per verb. The
+ * weights can be replaced with values fitted to measured runtimes.
+ */
+public class SimpleCostEstimator implements CostEstimator {
+
+	private double sentenceWeight = 1.0;
+	private double characterWeight = 0.05;
+	private double srlQuadraticWeight = 0.1;
+	private Map<Option<? extends MultiToken>, Double> tokenWeights = new HashMap<>();
+
+	public SimpleCostEstimator() {
+		tokenWeights.put(Option.POS, 1.0);
+		tokenWeights.put(Option.CHK, 1.0);
+		tokenWeights.put(Option.NER, 1.0);
+		tokenWeights.put(Option.SRL, 4.0);
+		tokenWeights.put(Option.PSG, 3.0);
+	}
+
+	@Override
+	public double estimate(Sentence sentence, Collection<Option<? extends MultiToken>> options) {
+		int characters = sentence.getSennaEnd() - sentence.getSennaStart();
+		int tokens = countTokens(sentence);
+		double cost = sentenceWeight + characterWeight * characters;
+		for (Option<? extends MultiToken> option : options) {
+			Double weight = tokenWeights.get(option);
+			if (weight != null) {
+				cost += weight * tokens;
+			}
+		}
+		if (options.contains(Option.SRL)) {
+			cost += srlQuadraticWeight * tokens * tokens;
+		}
+		return cost;
+	}
+
+	private static int countTokens(Sentence sentence) {
+		if (!sentence.getTokens().isEmpty()) {
+			return sentence.getTokens().size();
+		}
+		String sennaText = sentence.getSennaDocument().getSennaText();
+		int tokens = 0;
+		boolean inToken = false;
+		for (int i = sentence.getSennaStart(); i < sentence.getSennaEnd(); i++) {
+			boolean whitespace = Character.isWhitespace(sennaText.charAt(i));
+			if (!whitespace && !inToken) {
+				tokens++;
+			}
+			inToken = !whitespace;
+		}
+		return tokens;
+	}
+
+	public SimpleCostEstimator withSentenceWeight(double sentenceWeight) {
+		this.sentenceWeight = sentenceWeight;
+		return this;
+	}
+
+	public SimpleCostEstimator withCharacterWeight(double characterWeight) {
+		this.characterWeight = characterWeight;
+		return this;
+	}
+
+	public SimpleCostEstimator withTokenWeight(Option<? extends MultiToken> option, double tokenWeight) {
+		tokenWeights.put(option, tokenWeight);
+		return this;
+	}
+
+	public SimpleCostEstimator withSrlQuadraticWeight(double srlQuadraticWeight) {
+		this.srlQuadraticWeight = srlQuadraticWeight;
+		return this;
+	}
+
+}
@@ -0,0 +1,204 @@
+package senna;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * CPUs and memory available to this JVM, read from the limits of its cgroup
+ * (v1 or v2) when it runs in a container and from the host otherwise, and the
+ * resident memory of processes, read from /proc. Values that cannot be read on
+ * the current platform are 0.
+ */
+final class SystemResources {
+
+	private static final File CGROUP_ROOT = new File("/sys/fs/cgroup");
+	private static final File PROC = new File("/proc");
+	// cgroup v1 reports no memory limit as a page aligned Long.MAX_VALUE
+	private static final long UNLIMITED = 1L << 60;
+
+	private SystemResources() {
+	}
+
+	/**
+	 * @return the CPU quota of the cgroup rounded up, or the number of
+	 *         processors the JVM sees
+	 */
+	static int availableCpus() {
+		int processors = Runtime.getRuntime().availableProcessors();
+		String cpuMax = readCgroup("", "cpu.max");
+		long quota = 0;
+		long period = 0;
+		if (cpuMax != null) {
+			String[] values = cpuMax.split("\\s+");
+			if (values.length == 2 && !values[0].equals("max")) {
+				quota = parse(values[0]);
+				period = parse(values[1]);
+			}
+		} else {
+			quota = parse(readCgroup("cpu", "cpu.cfs_quota_us"));
+			period = parse(readCgroup("cpu", "cpu.cfs_period_us"));
+		}
+		if (quota > 0 && period > 0) {
+			return (int) Math.max(1, Math.min(processors, (quota + period - 1) / period));
+		}
+		return processors;
+	}
+
+	/**
+	 * @return the memory limit of the cgroup, or the physical memory of the host
+	 */
+	static long memoryLimit() {
+		long limit = cgroupMemoryLimit();
+		return limit > 0 ? limit : meminfo("MemTotal");
+	}
+
+	private static long cgroupMemoryLimit() {
+		String limit = readCgroup("", "memory.max");
+		if (limit == null) {
+			limit = readCgroup("memory", "memory.limit_in_bytes");
+		}
+		long bytes = parse(limit);
+		if (bytes > 0 && bytes < UNLIMITED) {
+			return bytes;
+		}
+		return 0;
+	}
+
+	/**
+	 * @return the memory used by the cgroup, or by the host
+	 */
+	static long memoryUsage() {
+		String usage = readCgroup("", "memory.current");
+		if (usage == null) {
+			usage = readCgroup("memory", "memory.usage_in_bytes");
+		}
+		long bytes = parse(usage);
+		if (bytes > 0 && cgroupMemoryLimit() > 0) {
+			return bytes;
+		}
+		long total = meminfo("MemTotal");
+		long available = meminfo("MemAvailable");
+		return total > 0 && available > 0 ? total - available : 0;
+	}
+
+	/**
+	 * @return the resident memory of a running process
+	 */
+	static long residentMemory(Process process) {
+		long pid = pid(process);
+		if (pid <= 0) {
+			return 0;
+		}
+		return statusValue(new File(PROC, pid + "/status"), "VmRSS");
+	}
+
+	private static long pid(Process process) {
+		try {
+			// Java 9 and later
+			Method method = Process.class.getMethod("pid");
+			return (Long) method.invoke(process);
+		} catch (ReflectiveOperationException e) {
+			// Java 8 on Unix
+		}
+		try {
+			Field field = process.getClass().getDeclaredField("pid");
+			field.setAccessible(true);
+			return field.getInt(process);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return 0;
+		}
+	}
+
+	private static long meminfo(String name) {
+		return statusValue(new File(PROC, "meminfo"), name);
+	}
+
+	/**
+	 * @return the value in bytes of a line like "VmRSS: 1800 kB"
+	 */
+	private static long statusValue(File file, String name) {
+		List<String> lines = readLines(file);
+		if (lines == null) {
+			return 0;
+		}
+		for (String line : lines) {
+			if (line.startsWith(name + ":")) {
+				String[] values = line.substring(name.length() + 1).trim().split("\\s+");
+				long value = parse(values[0]);
+				return values.length > 1 && values[1].equalsIgnoreCase("kB") ? value * 1024 : value;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Reads a file of the cgroup of this process, or of the root cgroup as seen
+	 * from a container with its own cgroup namespace.
+	 *
+	 * @param controller
+	 *            the cgroup v1 controller, empty for cgroup v2
+	 */
+	private static String readCgroup(String controller, String name) {
+		String path = cgroupPath(controller);
+		File directory = controller.isEmpty() ? CGROUP_ROOT : new File(CGROUP_ROOT, controller);
+		if (path != null && !path.equals("/")) {
+			String value = read(new File(new File(directory, path), name));
+			if (value != null) {
+				return value;
+			}
+		}
+		return read(new File(directory, name));
+	}
+
+	private static String cgroupPath(String controller) {
+		List<String> lines = readLines(new File(PROC, "self/cgroup"));
+		if (lines == null) {
+			return null;
+		}
+		for (String line : lines) {
+			String[] fields = line.split(":", 3);
+			if (fields.length < 3) {
+				continue;
+			}
+			if (controller.isEmpty() ? fields[0].equals("0") && fields[1].isEmpty()
+					: Arrays.asList(fields[1].split(",")).contains(controller)) {
+				return fields[2];
+			}
+		}
+		return null;
+	}
+
+	private static String read(File file) {
+		List<String> lines = readLines(file);
+		return lines != null && !lines.isEmpty() ? lines.get(0).trim() : null;
+	}
+
+	private static List<String> readLines(File file) {
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static long parse(String value) {
+		if (value == null) {
+			return 0;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+}
@@ -0,0 +1,80 @@
+package senna;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import senna.mapping.Sentence;
+import senna.mapping.SentenceListener;
+import senna.mapping.SentenceResult;
+import senna.mapping.SentenceStatus;
+import senna.mapping.SubDocument;
+
+/**
+ * Collects the columns each task group returned for a sentence in its own copy
+ * of the document and, once every group has completed the sentence, adds them
+ * to the original sentence by token position in the order of the groups.
+ */
+class TaskGroupMerger {
+
+	private final SentenceListener parsed;
+	private final int groups;
+	private final Map<Sentence, Integer> indexes = new IdentityHashMap<>();
+	private final SentenceResult[][] results;
+	private final int[] completedGroups;
+	private final SentenceStatus[] statuses;
+
+	TaskGroupMerger(List<Sentence> sentences, int groups, SentenceListener parsed) {
+		this.parsed = parsed;
+		this.groups = groups;
+		for (Sentence sentence : sentences) {
+			indexes.put(sentence, indexes.size());
+		}
+		this.results = new SentenceResult[sentences.size()][];
+		this.completedGroups = new int[sentences.size()];
+		this.statuses = new SentenceStatus[sentences.size()];
+	}
+
+	/**
+	 * @return the listener of a group processing the given copy
+	 */
+	SentenceListener listener(final SubDocument copy, final int group) {
+		return new SentenceListener() {
+			@Override
+			public void sentenceCompleted(Sentence sentence) {
+				Sentence original = copy.getOriginal(sentence);
+				// the tokens of a failed or skipped group do not match those of the others
+				SentenceResult result = sentence.getStatus() != SentenceStatus.FAILED
+						&& sentence.getStatus() != SentenceStatus.SKIPPED ? SentenceResult.capture(sentence) : null;
+				SentenceResult[] sentenceResults;
+				SentenceStatus status;
+				synchronized (TaskGroupMerger.this) {
+					int index = indexes.get(original);
+					if (results[index] == null) {
+						results[index] = new SentenceResult[groups];
+					}
+					results[index][group] = result;
+					if (result == null) {
+						statuses[index] = sentence.getStatus();
+					}
+					if (++completedGroups[index] < groups) {
+						return;
+					}
+					sentenceResults = results[index];
+					status = statuses[index];
+					results[index] = null;
+				}
+				for (SentenceResult groupResult : sentenceResults) {
+					if (groupResult != null) {
+						groupResult.replay(original);
+					}
+				}
+				if (status != null) {
+					original.setStatus(status);
+				}
+				parsed.sentenceCompleted(original);
+			}
+		};
+	}
+
+}
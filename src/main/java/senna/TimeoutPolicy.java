@@ -0,0 +1,32 @@
+package senna;
+
+import java.util.concurrent.TimeoutException;
+
+import senna.mapping.SentenceStatus;
+
+/**
+ * What an execution does when a time limit set with
+ * {@link SennaBuilder#withDocumentTimeout} or
+ * {@link SennaBuilder#withSentenceTimeout} has passed. Sentences that were not
+ * completed in time are marked {@link SentenceStatus#SKIPPED} and passed to the
+ * listener like the others.
+ */
+public enum TimeoutPolicy {
+
+	/**
+	 * Stops at the first limit and fails the execution with a
+	 * {@link TimeoutException}.
+	 */
+	FAIL,
+	/**
+	 * Skips a sentence that takes longer than the sentence timeout and goes on
+	 * with the next one in a new process. Stops at the document timeout and
+	 * returns the completed sentences.
+	 */
+	SKIP,
+	/**
+	 * Stops at the first limit and returns the completed sentences.
+	 */
+	PARTIAL
+
+}
@@ -0,0 +1,135 @@
+package senna;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import senna.mapping.Sentence;
+import senna.mapping.SentenceListener;
+
+/**
+ * Watches one run of a process on the sentences of an execution with time
+ * limits. The process is destroyed when it has not completed a sentence within
+ * the sentence timeout, which includes loading the model for a new process,
+ * and the execution is stopped at the document timeout.
+ */
+class Watchdog implements SentenceListener {
+
+	private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1,
+			new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "senna-watchdog");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	static {
+		TIMER.setKeepAliveTime(IoThreads.KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+		TIMER.allowCoreThreadTimeOut(true);
+		TIMER.setRemoveOnCancelPolicy(true);
+	}
+
+	private final Deadline deadline;
+	private final SentenceListener parsed;
+
+	private Runnable kill;
+	private long lastProgress;
+	private ScheduledFuture<?> check;
+	private boolean expired;
+
+	Watchdog(Deadline deadline, SentenceListener parsed) {
+		this.deadline = deadline;
+		this.parsed = parsed;
+	}
+
+	/**
+	 * Starts watching a process, which the kill destroys.
+	 *
+	 * @return false if the execution has been stopped, so the process must not
+	 *         be used
+	 */
+	boolean start(Runnable kill) {
+		if (!deadline.watch(kill)) {
+			return false;
+		}
+		if (deadline.isLimited()) {
+			synchronized (this) {
+				this.kill = kill;
+				lastProgress = System.nanoTime();
+				schedule();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Stops watching, before a pooled process is released for other executions.
+	 */
+	void stop() {
+		Runnable kill;
+		synchronized (this) {
+			if (this.kill == null) {
+				return;
+			}
+			kill = this.kill;
+			this.kill = null;
+			check.cancel(false);
+		}
+		deadline.unwatch(kill);
+	}
+
+	/**
+	 * @return true if the process was destroyed for exceeding the sentence
+	 *         timeout
+	 */
+	synchronized boolean isExpired() {
+		return expired;
+	}
+
+	@Override
+	public void sentenceCompleted(Sentence sentence) {
+		synchronized (this) {
+			lastProgress = System.nanoTime();
+		}
+		if (parsed != null) {
+			parsed.sentenceCompleted(sentence);
+		}
+	}
+
+	private void schedule() {
+		long delay = deadline.remainingNanos();
+		if (deadline.getSentenceTimeout() > 0) {
+			delay = Math.min(delay, lastProgress + deadline.getSentenceTimeout() - System.nanoTime());
+		}
+		check = TIMER.schedule(new Runnable() {
+			@Override
+			public void run() {
+				check();
+			}
+		}, Math.max(0, delay), TimeUnit.NANOSECONDS);
+	}
+
+	private void check() {
+		synchronized (this) {
+			if (kill == null) {
+				return;
+			}
+			if (deadline.remainingNanos() > 0) {
+				long timeout = deadline.getSentenceTimeout();
+				if (timeout > 0 && System.nanoTime() - lastProgress >= timeout) {
+					expired = true;
+					kill.run();
+				} else {
+					schedule();
+				}
+				return;
+			}
+		}
+		deadline.stop(new TimeoutException("document timeout has passed"));
+	}
+
+}
@@ -0,0 +1,237 @@
+package senna.mapping;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Reads SENNA's column output line by line from a reusable byte buffer. Columns
+ * are located without regular expressions, offset columns are parsed as ints
+ * directly from the bytes and tag columns are interned, so reading a token line
+ * does not allocate anything but previously unseen tags. Columns are decoded
+ * with the charset SENNA's input was encoded with, the platform charset by
+ * default.
+ */
+public class ColumnReader {
+
+	private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+	private static final int MAX_INTERNED_TAGS = 4096;
+
+	private final InputStream inputStream;
+	private final Charset charset;
+	private byte[] buffer;
+	private int position;
+	private int limit;
+	private boolean endOfStream;
+
+	private int[] columnStarts = new int[16];
+	private int[] columnEnds = new int[16];
+	private int columns;
+
+	private byte[][] tagKeys = new byte[1024][];
+	private String[] tagValues = new String[1024];
+	private int tags;
+
+	public ColumnReader(InputStream inputStream) {
+		this(inputStream, Charset.defaultCharset());
+	}
+
+	public ColumnReader(InputStream inputStream, Charset charset) {
+		this(inputStream, DEFAULT_BUFFER_SIZE, charset);
+	}
+
+	public ColumnReader(InputStream inputStream, int bufferSize) {
+		this(inputStream, bufferSize, Charset.defaultCharset());
+	}
+
+	public ColumnReader(InputStream inputStream, int bufferSize, Charset charset) {
+		this.inputStream = inputStream;
+		this.charset = charset;
+		this.buffer = new byte[bufferSize];
+	}
+
+	/**
+	 * Reads the next line and splits it into columns.
+	 *
+	 * @return false at the end of the stream
+	 */
+	public boolean readLine() throws IOException {
+		columns = 0;
+		int lineStart = position;
+		int lineEnd;
+		int scan = position;
+		while (true) {
+			while (scan < limit && buffer[scan] != '\n') {
+				scan++;
+			}
+			if (scan < limit) {
+				lineEnd = scan;
+				position = scan + 1;
+				break;
+			}
+			if (endOfStream) {
+				if (lineStart == limit) {
+					return false;
+				}
+				lineEnd = limit;
+				position = limit;
+				break;
+			}
+			int consumed = lineStart;
+			fill();
+			scan -= consumed;
+			lineStart = 0;
+		}
+		if (lineEnd > lineStart && buffer[lineEnd - 1] == '\r') {
+			lineEnd--;
+		}
+		splitColumns(lineStart, lineEnd);
+		return true;
+	}
+
+	private void fill() throws IOException {
+		int remaining = limit - position;
+		if (position > 0) {
+			System.arraycopy(buffer, position, buffer, 0, remaining);
+		} else if (remaining == buffer.length) {
+			byte[] larger = new byte[buffer.length * 2];
+			System.arraycopy(buffer, 0, larger, 0, remaining);
+			buffer = larger;
+		}
+		position = 0;
+		limit = remaining;
+		int read = inputStream.read(buffer, limit, buffer.length - limit);
+		if (read == -1) {
+			endOfStream = true;
+		} else {
+			limit += read;
+		}
+	}
+
+	private void splitColumns(int start, int end) {
+		int index = start;
+		while (index < end) {
+			while (index < end && isWhitespace(buffer[index])) {
+				index++;
+			}
+			if (index == end) {
+				break;
+			}
+			int columnStart = index;
+			while (index < end && !isWhitespace(buffer[index])) {
+				index++;
+			}
+			if (columns == columnStarts.length) {
+				int[] starts = new int[columns * 2];
+				int[] ends = new int[columns * 2];
+				System.arraycopy(columnStarts, 0, starts, 0, columns);
+				System.arraycopy(columnEnds, 0, ends, 0, columns);
+				columnStarts = starts;
+				columnEnds = ends;
+			}
+			columnStarts[columns] = columnStart;
+			columnEnds[columns] = index;
+			columns++;
+		}
+	}
+
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '\f' || b == 0x0B;
+	}
+
+	/**
+	 * @return true if the current line has no columns, which ends a sentence
+	 */
+	public boolean isEmptyLine() {
+		return columns == 0;
+	}
+
+	public int getColumnCount() {
+		return columns;
+	}
+
+	public int getIntColumn(int column) {
+		int index = columnStarts[column];
+		int end = columnEnds[column];
+		boolean negative = buffer[index] == '-';
+		if (negative || buffer[index] == '+') {
+			index++;
+		}
+		if (index == end) {
+			throw new NumberFormatException("not a number: " + getColumn(column));
+		}
+		int value = 0;
+		for (; index < end; index++) {
+			int digit = buffer[index] - '0';
+			if (digit < 0 || digit > 9) {
+				throw new NumberFormatException("not a number: " + getColumn(column));
+			}
+			value = value * 10 + digit;
+		}
+		return negative ? -value : value;
+	}
+
+	public String getColumn(int column) {
+		int start = columnStarts[column];
+		int length = columnEnds[column] - start;
+		int hash = 1;
+		for (int i = start; i < start + length; i++) {
+			hash = 31 * hash + buffer[i];
+		}
+		int mask = tagKeys.length - 1;
+		int slot = (hash ^ (hash >>> 16)) & mask;
+		while (tagKeys[slot] != null) {
+			if (equals(tagKeys[slot], start, length)) {
+				return tagValues[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		String value = new String(buffer, start, length, charset);
+		if (tags < MAX_INTERNED_TAGS) {
+			byte[] key = new byte[length];
+			System.arraycopy(buffer, start, key, 0, length);
+			tagKeys[slot] = key;
+			tagValues[slot] = value;
+			tags++;
+			if (tags * 2 > tagKeys.length) {
+				rehash();
+			}
+		}
+		return value;
+	}
+
+	private boolean equals(byte[] key, int start, int length) {
+		if (key.length != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (key[i] != buffer[start + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void rehash() {
+		byte[][] keys = tagKeys;
+		String[] values = tagValues;
+		tagKeys = new byte[keys.length * 2][];
+		tagValues = new String[keys.length * 2];
+		int mask = tagKeys.length - 1;
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				int hash = 1;
+				for (byte b : keys[i]) {
+					hash = 31 * hash + b;
+				}
+				int slot = (hash ^ (hash >>> 16)) & mask;
+				while (tagKeys[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				tagKeys[slot] = keys[i];
+				tagValues[slot] = values[i];
+			}
+		}
+	}
+
+}
@@ -0,0 +1,81 @@
+package senna.mapping;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CombinedDocument extends Document {
+	private static final long serialVersionUID = 1L;
+
+	protected List<Document> originals;
+	protected Map<Sentence, Sentence> sentenceMapping;
+
+	public CombinedDocument(List<Document> documents) {
+		super(concatenateDocumentTexts(documents));
+		this.originals = documents;
+		this.tagDictionary = documents.isEmpty() ? null : documents.get(0).tagDictionary;
+
+		List<Sentence> combinedSentences = new ArrayList<>();
+		this.sentenceMapping = new LinkedHashMap<>();
+		int documentOffset = 0;
+		for (Document document : documents) {
+			for (Sentence sentence : document.sentences) {
+				Sentence combinedSentence = new Sentence(sentence.documentId,
+						documentOffset + sentence.documentStart, documentOffset + sentence.documentEnd);
+				combinedSentence.userTokens = sentence.userTokens;
+				combinedSentences.add(combinedSentence);
+				sentenceMapping.put(combinedSentence, sentence);
+				if (sentence.userTokens) {
+					for (Token token : sentence.tokens) {
+						Token combinedToken = new Token(token.getDocumentId(),
+								documentOffset + token.getDocumentStart(), documentOffset + token.getDocumentEnd());
+						combinedSentence.addToken(combinedToken);
+					}
+				}
+			}
+			documentOffset += document.documentText.length();
+		}
+
+		setSentences(combinedSentences);
+	}
+
+	private static String concatenateDocumentTexts(List<Document> documents) {
+		StringBuilder documentText = new StringBuilder();
+		for (Document document : documents) {
+			documentText.append(document.documentText);
+		}
+		return documentText.toString();
+	}
+
+	public List<Document> getOriginals() {
+		return originals;
+	}
+
+	public void mergeToOriginals() {
+		for (Sentence sentence : sentences) {
+			mergeToOriginal(sentence);
+		}
+	}
+
+	public Sentence mergeToOriginal(Sentence sentence) {
+		Sentence originalSentence = sentenceMapping.get(sentence);
+		for (int tokenNumber = 0; tokenNumber < sentence.tokens.size(); tokenNumber++) {
+			Token token = sentence.tokens.get(tokenNumber);
+			Token originalToken;
+			if (sentence.userTokens) {
+				originalToken = originalSentence.tokens.get(tokenNumber);
+			} else {
+				originalToken = originalSentence.addToken(
+						originalSentence.sennaStart + token.getSennaStart() - sentence.sennaStart,
+						originalSentence.sennaStart + token.getSennaEnd() - sentence.sennaStart,
+						originalSentence.documentStart + token.getDocumentStart() - sentence.documentStart,
+						originalSentence.documentStart + token.getDocumentEnd() - sentence.documentStart);
+			}
+			originalToken.copyFeatures(token);
+		}
+		originalSentence.status = sentence.status;
+		return originalSentence;
+	}
+
+}
@@ -10,11 +10,24 @@ public class Document extends SimpleMapping {
 
 	protected String sennaText;
 
+	protected TagDictionary tagDictionary;
+
 	public Document(String documentText, List<Sentence> sentences) {
 		this(documentText);
 		setSentences(sentences);
 	}
 
+	/**
+	 * Creates a compact document, which keeps the tokens of each sentence in
+	 * arrays and their tags as codes of the given dictionary. Its tokens are views
+	 * created on access, so they should not be compared by identity.
+	 */
+	public Document(String documentText, List<Sentence> sentences, TagDictionary tagDictionary) {
+		this(documentText);
+		this.tagDictionary = tagDictionary;
+		setSentences(sentences);
+	}
+
 	protected Document(String documentText) {
 		super(null);
 		this.sennaDocument = this;
@@ -30,8 +43,12 @@ public class Document extends SimpleMapping {
 		for (Sentence sentence : this.sentences) {
 			sentence.sennaDocument = this;
 			sentence.tokens = DocumentBuilder.sort(sentence.tokens);
-			for (Token token : sentence.tokens) {
-				token.sennaDocument = this;
+			if (tagDictionary != null) {
+				sentence.tokens = new TokenTable(sentence, tagDictionary, sentence.tokens);
+			} else {
+				for (Token token : sentence.tokens) {
+					token.sennaDocument = this;
+				}
 			}
 		}
 
@@ -42,6 +59,13 @@ public class Document extends SimpleMapping {
 		return sentences;
 	}
 
+	/**
+	 * @return the dictionary of a compact document, null otherwise
+	 */
+	public TagDictionary getTagDictionary() {
+		return tagDictionary;
+	}
+
 	@Override
 	public String getDocumentText() {
 		return documentText;
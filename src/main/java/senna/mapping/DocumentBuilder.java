@@ -4,7 +4,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
 
 public class DocumentBuilder {
@@ -25,53 +24,59 @@ public class DocumentBuilder {
 		}
 	};
 
+	/**
+	 * Builds the SENNA text of a document in one pass over its text, dropping the
+	 * characters SENNA uses as separators, and sets the SENNA offsets of its
+	 * sentences and user tokens.
+	 */
 	protected static void calculateSennaTextAndOffsets(Document document) {
-		StringBuilder sennaText = new StringBuilder();
-		Integer sentenceSennaOffset = 0;
-		Sentence previousSentence = null;
+		String documentText = document.documentText;
+		StringBuilder sennaText = new StringBuilder(documentText.length());
+		boolean firstSentence = true;
 		for (Sentence sentence : document.sentences) {
-			StringBuilder sentenceSennaText = new StringBuilder();
+			if (!firstSentence) {
+				sennaText.append(SENNA_SENTENCESPLIT);
+			}
+			firstSentence = false;
+			int sentenceSennaStart = sennaText.length();
 			if (!sentence.tokens.isEmpty()) {
 				sentence.userTokens = true;
-				Integer tokenSennaOffset = sentenceSennaOffset;
-				Token previousToken = null;
-				Iterator<Token> tokenIterator = sentence.tokens.iterator();
-				while (tokenIterator.hasNext()) {
-					Token token = tokenIterator.next();
-					String tokenSennaText = token.getDocumentText().replaceAll(SENNA_TOKENSPLIT, "")
-							.replaceAll(SENNA_SENTENCESPLIT, "");
-					if (previousToken != null) {
-						sentenceSennaText.append(SENNA_TOKENSPLIT);
+				boolean firstToken = true;
+				for (Token token : sentence.tokens) {
+					if (!firstToken) {
+						sennaText.append(SENNA_TOKENSPLIT);
 					}
-					sentenceSennaText.append(tokenSennaText);
-
-					token.sennaStart = tokenSennaOffset;
-					token.sennaEnd = token.sennaStart + tokenSennaText.length();
-					tokenSennaOffset = token.sennaEnd + SENNA_TOKENSPLIT.length();
-
-					previousToken = token;
+					firstToken = false;
+					int tokenSennaStart = sennaText.length();
+					appendSennaText(sennaText, documentText, token.getDocumentStart(), token.getDocumentEnd(), true);
+					token.setSennaOffsets(tokenSennaStart, sennaText.length());
 				}
 			} else {
 				sentence.userTokens = false;
-				sentenceSennaText.append(sentence.getDocumentText().replaceAll(SENNA_SENTENCESPLIT, ""));
-			}
-			if (previousSentence != null) {
-				sennaText.append(SENNA_SENTENCESPLIT);
+				appendSennaText(sennaText, documentText, sentence.documentStart, sentence.documentEnd, false);
 			}
-			if (sentenceSennaText.length() > SENNA_MAX_SENTENCE_SIZE) {
-				throw new IllegalStateException(
-						"sentence to long, max size is " + SENNA_MAX_SENTENCE_SIZE + "\n" + sentenceSennaText);
+			if (sennaText.length() - sentenceSennaStart > SENNA_MAX_SENTENCE_SIZE) {
+				throw new IllegalStateException("sentence to long, max size is " + SENNA_MAX_SENTENCE_SIZE + "\n"
+						+ sennaText.substring(sentenceSennaStart));
 			}
-			sennaText.append(sentenceSennaText.toString());
-
-			sentence.sennaStart = sentenceSennaOffset;
-			sentence.sennaEnd = sentence.sennaStart + sentenceSennaText.length();
-			sentenceSennaOffset = sentence.sennaEnd + SENNA_SENTENCESPLIT.length();
-			previousSentence = sentence;
+			sentence.sennaStart = sentenceSennaStart;
+			sentence.sennaEnd = sennaText.length();
 		}
 		document.sennaText = sennaText.toString();
 	}
 
+	private static void appendSennaText(StringBuilder sennaText, String documentText, int start, int end,
+			boolean token) {
+		char sentenceSplit = SENNA_SENTENCESPLIT.charAt(0);
+		char tokenSplit = SENNA_TOKENSPLIT.charAt(0);
+		for (int i = start; i < end; i++) {
+			char c = documentText.charAt(i);
+			if (c != sentenceSplit && (!token || c != tokenSplit)) {
+				sennaText.append(c);
+			}
+		}
+	}
+
 	protected static <M extends SimpleMapping> List<M> sort(Collection<M> mappings) {
 		List<M> sortedMappings = new ArrayList<>(mappings);
 		Collections.sort(sortedMappings, MAPPING_COMPARATOR);
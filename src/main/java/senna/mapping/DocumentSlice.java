@@ -0,0 +1,81 @@
+package senna.mapping;
+
+import java.nio.CharBuffer;
+import java.util.List;
+
+/**
+ * Some sentences of a document, which are sent to SENNA on their own. Unlike a
+ * {@link SubDocument} it neither copies the text nor the sentences: SENNA's
+ * results are parsed straight into the sentences of the document, and the SENNA
+ * text of consecutive sentences is a view of the document's.
+ */
+public class DocumentSlice {
+
+	protected final Document document;
+	protected final List<Sentence> sentences;
+	protected final boolean consecutive;
+
+	/**
+	 * Creates a slice of all sentences of the document.
+	 */
+	public DocumentSlice(Document document) {
+		this(document, document.sentences, true);
+	}
+
+	/**
+	 * Creates a slice of some sentences of a document, which do not have to be
+	 * consecutive.
+	 *
+	 * @param sentences
+	 *            sentences of the document in document order
+	 */
+	public DocumentSlice(Document document, List<Sentence> sentences) {
+		this(document, sentences, false);
+	}
+
+	private DocumentSlice(Document document, List<Sentence> sentences, boolean consecutive) {
+		this.document = document;
+		this.sentences = sentences;
+		this.consecutive = consecutive;
+	}
+
+	/**
+	 * @return the slice of the sentences from fromIndex, inclusive, to toIndex,
+	 *         exclusive, of this slice
+	 */
+	public DocumentSlice slice(int fromIndex, int toIndex) {
+		return new DocumentSlice(document, sentences.subList(fromIndex, toIndex), consecutive);
+	}
+
+	public Document getDocument() {
+		return document;
+	}
+
+	public List<Sentence> getSentences() {
+		return sentences;
+	}
+
+	/**
+	 * @return the SENNA input of the sentences, one per line
+	 */
+	public CharSequence getSennaText() {
+		if (sentences.isEmpty()) {
+			return "";
+		}
+		if (consecutive) {
+			return CharBuffer.wrap(document.sennaText, sentences.get(0).sennaStart,
+					sentences.get(sentences.size() - 1).sennaEnd);
+		}
+		StringBuilder sennaText = new StringBuilder();
+		boolean firstSentence = true;
+		for (Sentence sentence : sentences) {
+			if (!firstSentence) {
+				sennaText.append(DocumentBuilder.SENNA_SENTENCESPLIT);
+			}
+			firstSentence = false;
+			sennaText.append(document.sennaText, sentence.sennaStart, sentence.sennaEnd);
+		}
+		return sennaText;
+	}
+
+}
@@ -19,7 +19,7 @@ public class MultiToken implements Mapping {
 			Token endToken) {
 		this.sentence = sentence;
 		this.option = option;
-		this.type = type;
+		this.type = TagDictionary.of(sentence.sennaDocument).canonicalType(type);
 		this.startToken = startToken;
 		this.endToken = endToken;
 	}
@@ -44,7 +44,7 @@ public class MultiToken implements Mapping {
 
 	@Override
 	public String getDocumentText() {
-		return sentence.sennaDocument.documentText.substring(startToken.documentStart, endToken.documentEnd);
+		return sentence.sennaDocument.documentText.substring(startToken.getDocumentStart(), endToken.getDocumentEnd());
 	}
 
 	@Override
@@ -64,7 +64,7 @@ public class MultiToken implements Mapping {
 
 	@Override
 	public String getSennaText() {
-		return sentence.sennaDocument.sennaText.substring(startToken.sennaStart, endToken.sennaEnd);
+		return sentence.sennaDocument.sennaText.substring(startToken.getSennaStart(), endToken.getSennaEnd());
 	}
 
 }
@@ -6,14 +6,14 @@ import static senna.Option.POS;
 import static senna.Option.PSG;
 import static senna.Option.SRL;
 
-import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -23,6 +23,7 @@ import java.util.regex.Pattern;
 
 import senna.Option;
 import senna.Util;
+import senna.mapping.TagDictionary.TagSet;
 
 public class ResultParser {
 
@@ -35,15 +36,8 @@ public class ResultParser {
 	private static final int START_COLUMN = 1;
 	private static final int END_COLUMN = 2;
 
-	private static final String IOB_INSIDE_PREFIX = "I-";
-	private static final String IOB_OUTSIDE = "O";
-	private static final String IOB_BEGIN_PREFIX = "B-";
-	private static final String IOB_END_PREFIX = "E-";
-	private static final String IOB_SINGLE_PREFIX = "S-";
-
 	private static final String SRL_NONVERB = "-";
 	private static final String SRL_VERB_TYPE = "V";
-	private static final Pattern BRACKETTAGS_SPLIT_PATTERN = Pattern.compile("\\*?([\\(\\)][^\\(\\)\\*]*)\\*?(.*)");
 
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	public static void parse(Document document, String output, Collection<Option<? extends MultiToken>> options) {
@@ -54,28 +48,102 @@ public class ResultParser {
 			Sentence sentence = document.getSentences().get(sentenceNumber);
 			String sentenceOutput = split[sentenceNumber];
 			parseSentence(sentence, Arrays.asList(sentenceOutput.split(LINE_SPLIT_REGEX)), sortedOptions);
+			sentence.status = SentenceStatus.COMPLETED;
 		}
 	}
 
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	public static void parse(Document document, InputStream inputStream,
 			Collection<Option<? extends MultiToken>> options) throws IOException {
+		parse(document, inputStream, options, null);
+	}
+
+	public static void parse(Document document, InputStream inputStream,
+			Collection<Option<? extends MultiToken>> options, SentenceListener listener) throws IOException {
+		parse(document.getSentences(), inputStream, options, listener);
+	}
+
+	/**
+	 * Parses the output of a SENNA process, which ends with the last sentence.
+	 */
+	public static void parse(List<Sentence> sentences, InputStream inputStream,
+			Collection<Option<? extends MultiToken>> options, SentenceListener listener) throws IOException {
+		parse(sentences, new ColumnReader(inputStream), options, listener, true);
+	}
+
+	public static void parse(List<Sentence> sentences, ColumnReader reader,
+			Collection<Option<? extends MultiToken>> options, SentenceListener listener) throws IOException {
+		parse(sentences, reader, options, listener, false);
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static void parse(List<Sentence> sentences, ColumnReader reader,
+			Collection<Option<? extends MultiToken>> options, SentenceListener listener, boolean untilEndOfStream)
+			throws IOException {
 		List sortedOptions = Util.sort((Collection) options);
+		boolean hasPsg = sortedOptions.contains(Option.PSG);
 		int sentenceNumber = 0;
-		BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-		String line;
-		List<String> lines = new ArrayList<>();
-		while ((line = reader.readLine()) != null) {
-			if (line.length() > 0) {
-				lines.add(line);
+		int tokenNumber = 0;
+		while ((untilEndOfStream || sentenceNumber < sentences.size()) && reader.readLine()) {
+			if (!reader.isEmptyLine()) {
+				if (sentenceNumber < sentences.size()) {
+					parseToken(sentences.get(sentenceNumber), tokenNumber, reader, sortedOptions, hasPsg);
+				}
+				tokenNumber++;
 			} else {
-				if (sentenceNumber < document.getSentences().size()) {
-					Sentence sentence = document.getSentences().get(sentenceNumber++);
-					parseSentence(sentence, lines, sortedOptions);
+				if (sentenceNumber < sentences.size()) {
+					sentences.get(sentenceNumber).status = SentenceStatus.COMPLETED;
+					if (listener != null) {
+						listener.sentenceCompleted(sentences.get(sentenceNumber));
+					}
+				}
+				sentenceNumber++;
+				tokenNumber = 0;
+			}
+		}
+		if (untilEndOfStream && listener != null) {
+			for (; sentenceNumber < sentences.size(); sentenceNumber++) {
+				listener.sentenceCompleted(sentences.get(sentenceNumber));
+			}
+		} else if (!untilEndOfStream && sentenceNumber < sentences.size()) {
+			throw new EOFException("senna output ended after " + sentenceNumber + " of " + sentences.size()
+					+ " sentences");
+		}
+	}
+
+	private static void parseToken(Sentence sentence, int tokenNumber, ColumnReader reader,
+			List<Option<? extends MultiToken>> options, boolean hasPsg) {
+		Token token;
+		if (sentence.userTokens) {
+			token = sentence.tokens.get(tokenNumber);
+		} else {
+			int start = reader.getIntColumn(START_COLUMN);
+			int end = reader.getIntColumn(END_COLUMN);
+			token = sentence.addToken(sentence.sennaStart + start, sentence.sennaStart + end,
+					sentence.documentStart + start, sentence.documentStart + end);
+		}
+		TagDictionary dictionary = TagDictionary.of(sentence.sennaDocument);
+		int columnCount = reader.getColumnCount();
+		List<String> srlValues = Collections.emptyList();
+		for (int columnNumber = END_COLUMN + 1, optionNumber = 0; columnNumber < columnCount
+				&& optionNumber < options.size(); columnNumber++, optionNumber++) {
+			Option<? extends MultiToken> option = options.get(optionNumber);
+			if (option.equals(Option.PSG)) {
+				continue;
+			}
+			token.setFeature(option, dictionary.get(option).canonical(reader.getColumn(columnNumber)));
+			if (option.equals(Option.SRL)) {
+				TagSet srlArguments = dictionary.getSrlArguments();
+				int srlEnd = hasPsg ? columnCount - 1 : columnCount;
+				srlValues = new ArrayList<>(Math.max(0, srlEnd - columnNumber - 1));
+				for (int srlNumber = columnNumber + 1; srlNumber < srlEnd; srlNumber++) {
+					srlValues.add(srlArguments.canonical(reader.getColumn(srlNumber)));
 				}
-				lines.clear();
 			}
 		}
+		if (hasPsg) {
+			token.setFeature(Option.PSG, dictionary.get(Option.PSG).canonical(reader.getColumn(columnCount - 1)));
+		}
+		token.setSrlValues(srlValues);
 	}
 
 	protected static void parseSentence(Sentence sentence, List<String> lines,
@@ -85,6 +153,7 @@ public class ResultParser {
 			sentenceData.add(Arrays.asList(line.trim().split("\\s+")));
 		}
 		boolean hasPsg = options.contains(Option.PSG);
+		TagDictionary dictionary = TagDictionary.of(sentence.sennaDocument);
 		for (int tokenNumber = 0; tokenNumber < sentenceData.size(); tokenNumber++) {
 			List<String> tokenData = sentenceData.get(tokenNumber);
 			Map<Option<? extends MultiToken>, String> features = new LinkedHashMap<>();
@@ -95,77 +164,81 @@ public class ResultParser {
 				if (option.equals(Option.PSG)) {
 					continue;
 				}
-				String columnValue = tokenData.get(columnNumber);
+				String columnValue = dictionary.get(option).canonical(tokenData.get(columnNumber));
 				features.put(option, columnValue);
 				if (option.equals(Option.SRL)) {
 					for (int srlNumber = columnNumber + 1; hasPsg ? srlNumber < tokenData.size() - 1
 							: srlNumber < tokenData.size(); srlNumber++) {
-						String srlValue = tokenData.get(srlNumber);
+						String srlValue = dictionary.getSrlArguments().canonical(tokenData.get(srlNumber));
 						srlValues.add(srlValue);
 					}
 				}
 			}
 			if (hasPsg) {
-				String psg = tokenData.get(tokenData.size() - 1);
+				String psg = dictionary.get(Option.PSG).canonical(tokenData.get(tokenData.size() - 1));
 				features.put(Option.PSG, psg);
 			}
+			Token token;
 			if (sentence.userTokens) {
-				Token token = sentence.tokens.get(tokenNumber);
-				token.features.putAll(features);
-				token.srlValues = srlValues;
+				token = sentence.tokens.get(tokenNumber);
 			} else {
 				// String tokenText = tokenData.get(TOKEN_COLUMN);
 				Integer start = Integer.parseInt(tokenData.get(START_COLUMN));
 				Integer end = Integer.parseInt(tokenData.get(END_COLUMN));
-				Token token = new Token(sentence, sentence.sennaStart + start, sentence.sennaStart + end,
+				token = sentence.addToken(sentence.sennaStart + start, sentence.sennaStart + end,
 						sentence.documentStart + start, sentence.documentStart + end);
-				sentence.addToken(token);
-				token.features.putAll(features);
-				token.srlValues = srlValues;
 			}
+			for (Map.Entry<Option<? extends MultiToken>, String> feature : features.entrySet()) {
+				token.setFeature(feature.getKey(), feature.getValue());
+			}
+			token.setSrlValues(srlValues);
 
 		}
 	}
 
 	public static void parseAnnotations(Document document, final Option<? extends MultiToken> option,
 			boolean bracketTags) {
+		for (Sentence sentence : document.sentences) {
+			parseAnnotations(sentence, option, bracketTags);
+		}
+	}
+
+	public static void parseAnnotations(Sentence sentence, final Option<? extends MultiToken> option,
+			boolean bracketTags) {
+		TagSet tagSet = TagDictionary.of(sentence.sennaDocument).get(option);
 		if (option.equals(POS)) {
 			throw new UnsupportedOperationException();
 		} else if (option.equals(SRL)) {
-			parseSrl(document, bracketTags);
+			parseSrl(sentence, bracketTags);
 		} else if (option.equals(CHK) || option.equals(NER)) {
-			for (Sentence sentence : document.sentences) {
-				List<MultiToken> multiTokens = extractMultiToken(sentence, option, bracketTags,
-						new ParserHelper<MultiToken>() {
-							@Override
-							public String getValue(Token token) {
-								return token.getFeature(option);
-							}
+			List<MultiToken> multiTokens = extractMultiToken(sentence, tagSet, bracketTags,
+					new ParserHelper<MultiToken>() {
+						@Override
+						public String getValue(Token token) {
+							return token.getFeature(option);
+						}
 
-							@Override
-							public MultiToken createToken(Sentence sentence, String type, Token startToken,
-									Token endToken, MultiToken parent) {
-								return new MultiToken(sentence, option, type, startToken, endToken);
-							}
-						});
-				sentence.multiTokens.put(option, multiTokens);
-			}
+						@Override
+						public MultiToken createToken(Sentence sentence, String type, Token startToken, Token endToken,
+								MultiToken parent) {
+							return new MultiToken(sentence, option, type, startToken, endToken);
+						}
+					});
+			sentence.multiTokens.put(option, multiTokens);
 		} else if (option.equals(PSG)) {
-			for (Sentence sentence : document.sentences) {
-				List<PsgToken> multiTokens = extractBracketTokens(sentence, new ParserHelper<PsgToken>() {
-					@Override
-					public String getValue(Token token) {
-						return token.getFeature(option);
-					}
+			List<PsgToken> multiTokens = extractBracketTokens(sentence, tagSet, new ParserHelper<PsgToken>() {
+				@Override
+				public String getValue(Token token) {
+					return token.getFeature(option);
+				}
 
-					@Override
-					public PsgToken createToken(Sentence sentence, String type, Token startToken, Token endToken,
-							PsgToken parent) {
-						return new PsgToken(sentence, type, startToken, parent);
-					}
-				});
-				sentence.multiTokens.put(option, multiTokens);
-			}
+				@Override
+				public PsgToken createToken(Sentence sentence, String type, Token startToken, Token endToken,
+						PsgToken parent) {
+					return new PsgToken(sentence, type, startToken, parent);
+				}
+			});
+			sentence.multiTokens.put(option, multiTokens);
 		}
 	}
 
@@ -175,70 +248,69 @@ public class ResultParser {
 		T createToken(Sentence sentence, String type, Token startToken, Token endToken, T parent);
 	}
 
-	private static <T extends MultiToken> List<T> extractMultiToken(Sentence sentence,
-			Option<? extends MultiToken> option, boolean bracketTags, ParserHelper<T> helper) {
+	private static <T extends MultiToken> List<T> extractMultiToken(Sentence sentence, TagSet tagSet,
+			boolean bracketTags, ParserHelper<T> helper) {
 		if (bracketTags) {
-			return extractBracketTokens(sentence, helper);
+			return extractBracketTokens(sentence, tagSet, helper);
 		} else {
-			return extractIobesToken(sentence, helper);
+			return extractIobesToken(sentence, tagSet, helper);
 		}
 	}
 
-	private static <T extends MultiToken> List<T> extractIobesToken(Sentence sentence, ParserHelper<T> helper) {
+	private static <T extends MultiToken> List<T> extractIobesToken(Sentence sentence, TagSet tagSet,
+			ParserHelper<T> helper) {
 		Token firstToken = null;
 		Token previousToken = null;
-		String previousTokenIobValue = null;
+		Tag previousTokenTag = null;
 		List<T> tokens = new ArrayList<>();
 		for (Token token : sentence.tokens) {
-			String iobValue = helper.getValue(token);
-			if (iobValue.contentEquals(IOB_OUTSIDE)) {
+			Tag tag = tagSet.get(helper.getValue(token));
+			TagPrefix prefix = tag.getPrefix();
+			if (prefix == TagPrefix.OUTSIDE) {
 				if (firstToken != null && previousToken != null) {
-					addIobToken(sentence, helper, firstToken, previousToken, previousTokenIobValue, tokens);
+					addIobToken(sentence, helper, firstToken, previousToken, previousTokenTag, tokens);
 				}
 				firstToken = null;
 				continue;
-			} else if (iobValue.startsWith(IOB_SINGLE_PREFIX)) {
+			} else if (prefix == TagPrefix.SINGLE) {
 				if (firstToken != null && previousToken != null) {
-					addIobToken(sentence, helper, firstToken, previousToken, previousTokenIobValue, tokens);
+					addIobToken(sentence, helper, firstToken, previousToken, previousTokenTag, tokens);
 				}
-				addIobToken(sentence, helper, token, token, iobValue, tokens);
+				addIobToken(sentence, helper, token, token, tag, tokens);
 				firstToken = null;
-			} else if (iobValue.startsWith(IOB_BEGIN_PREFIX)) {
+			} else if (prefix == TagPrefix.BEGIN) {
 				if (firstToken != null && previousToken != null) {
-					addIobToken(sentence, helper, firstToken, previousToken, previousTokenIobValue, tokens);
+					addIobToken(sentence, helper, firstToken, previousToken, previousTokenTag, tokens);
 				}
 				firstToken = token;
 			}
 			previousToken = token;
-			previousTokenIobValue = iobValue;
+			previousTokenTag = tag;
 		}
 		if (firstToken != null && previousToken != null) {
-			String iobValue = previousTokenIobValue;
-			if (iobValue.startsWith(IOB_BEGIN_PREFIX) || iobValue.startsWith(IOB_INSIDE_PREFIX)
-					|| iobValue.startsWith(IOB_END_PREFIX)) {
-				addIobToken(sentence, helper, firstToken, previousToken, iobValue, tokens);
+			TagPrefix prefix = previousTokenTag.getPrefix();
+			if (prefix == TagPrefix.BEGIN || prefix == TagPrefix.INSIDE || prefix == TagPrefix.END) {
+				addIobToken(sentence, helper, firstToken, previousToken, previousTokenTag, tokens);
 			}
 		}
 		return tokens;
 	}
 
 	private static <T extends MultiToken> void addIobToken(Sentence sentence, ParserHelper<T> helper, Token startToken,
-			Token endToken, String iobValue, List<T> tokens) {
-		String type = iobValue.substring(2);
-		T token = helper.createToken(sentence, type, startToken, endToken, null);
+			Token endToken, Tag tag, List<T> tokens) {
+		T token = helper.createToken(sentence, tag.getType(), startToken, endToken, null);
 		tokens.add(token);
 	}
 
-	private static <T extends MultiToken> List<T> extractBracketTokens(Sentence sentence, ParserHelper<T> helper) {
+	private static <T extends MultiToken> List<T> extractBracketTokens(Sentence sentence, TagSet tagSet,
+			ParserHelper<T> helper) {
 		Deque<T> stack = new ArrayDeque<>();
 		List<T> tokens = new ArrayList<>();
 		for (Token token : sentence.tokens) {
-			String value = helper.getValue(token);
-			List<String> bracketTags = Util.readColumnLine(value, BRACKETTAGS_SPLIT_PATTERN);
-			for (String tag : bracketTags) {
-				if (tag.startsWith("(")) {
+			for (String bracket : tagSet.get(helper.getValue(token)).getBrackets()) {
+				if (bracket != Tag.CLOSING_BRACKET) {
 					T parent = !stack.isEmpty() ? stack.getFirst() : null;
-					T psgToken = helper.createToken(sentence, tag.substring(1), token, null, parent);
+					T psgToken = helper.createToken(sentence, bracket, token, null, parent);
 					stack.addFirst(psgToken);
 					if (parent == null) {
 						tokens.add(psgToken);
@@ -252,22 +324,20 @@ public class ResultParser {
 		return tokens;
 	}
 
-	private static void parseSrl(Document document, boolean bracketTags) {
-		for (Sentence sentence : document.sentences) {
-			List<SrlVerbToken> verbs = new ArrayList<>();
-			Integer verbNumber = 0;
-			for (int tokenNumber = 0; tokenNumber < sentence.tokens.size(); tokenNumber++) {
-				Token token = sentence.tokens.get(tokenNumber);
-				if (token.getFeature(Option.SRL).compareTo(SRL_NONVERB) != 0) {
-					SrlVerbToken verb = new SrlVerbToken(sentence, SRL_VERB_TYPE, token, token);
-					List<SrlArgumentToken> arguments = extractSrlVerbArguments(sentence, verbNumber, bracketTags);
-					verb.addArguments(arguments);
-					verbs.add(verb);
-					verbNumber++;
-				}
+	private static void parseSrl(Sentence sentence, boolean bracketTags) {
+		List<SrlVerbToken> verbs = new ArrayList<>();
+		Integer verbNumber = 0;
+		for (int tokenNumber = 0; tokenNumber < sentence.tokens.size(); tokenNumber++) {
+			Token token = sentence.tokens.get(tokenNumber);
+			if (token.getFeature(Option.SRL).compareTo(SRL_NONVERB) != 0) {
+				SrlVerbToken verb = new SrlVerbToken(sentence, SRL_VERB_TYPE, token, token);
+				List<SrlArgumentToken> arguments = extractSrlVerbArguments(sentence, verbNumber, bracketTags);
+				verb.addArguments(arguments);
+				verbs.add(verb);
+				verbNumber++;
 			}
-			sentence.multiTokens.put(Option.SRL, verbs);
 		}
+		sentence.multiTokens.put(Option.SRL, verbs);
 	}
 
 	private static List<SrlArgumentToken> extractSrlVerbArguments(final Sentence sentence, final Integer verbNumber,
@@ -286,10 +356,11 @@ public class ResultParser {
 				return new SrlArgumentToken(sentence, type, startToken, endToken);
 			}
 		};
+		TagSet tagSet = TagDictionary.of(sentence.sennaDocument).getSrlArguments();
 		if (bracketTags) {
-			arguments = extractBracketTokens(sentence, helper);
+			arguments = extractBracketTokens(sentence, tagSet, helper);
 		} else {
-			arguments = extractIobesToken(sentence, helper);
+			arguments = extractIobesToken(sentence, tagSet, helper);
 		}
 		Iterator<SrlArgumentToken> iterator = arguments.iterator();
 		while (iterator.hasNext()) {
@@ -14,6 +14,7 @@ public class Sentence extends SimpleMapping {
 	protected List<Token> tokens = new ArrayList<>();
 	protected Map<Option<? extends MultiToken>, List<? extends MultiToken>> multiTokens = new HashMap<>();
 	protected boolean userTokens;
+	protected SentenceStatus status = SentenceStatus.PENDING;
 
 	public Sentence(Object documentId, Integer documentStart, Integer documentEnd) {
 		super(null);
@@ -39,6 +40,44 @@ public class Sentence extends SimpleMapping {
 		return tokens;
 	}
 
+	/**
+	 * @return true if the sentence was created with tokens, which are passed to
+	 *         SENNA instead of its tokenizer
+	 */
+	public boolean hasUserTokens() {
+		return userTokens;
+	}
+
+	public SentenceStatus getStatus() {
+		return status;
+	}
+
+	public void setStatus(SentenceStatus status) {
+		this.status = status;
+	}
+
+	/**
+	 * Drops the tokens SENNA has added to the sentence, e.g. from the output of a
+	 * process that died while it was parsed, so it can be parsed again. User
+	 * tokens are kept without the tags SENNA has set.
+	 */
+	public void clearSennaTokens() {
+		if (tokens.isEmpty()) {
+			return;
+		}
+		if (tokens instanceof TokenTable) {
+			TokenTable table = (TokenTable) tokens;
+			tokens = userTokens ? table.withoutTags()
+					: new TokenTable(this, table.dictionary, Collections.<Token>emptyList());
+		} else if (userTokens) {
+			for (Token token : tokens) {
+				token.clearTags();
+			}
+		} else {
+			tokens = new ArrayList<Token>();
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	public <T extends MultiToken> List<T> getMultiTokens(Option<T> option) {
 		return (List<T>) multiTokens.getOrDefault(option, Collections.emptyList());
@@ -49,4 +88,14 @@ public class Sentence extends SimpleMapping {
 		token.sentence = this;
 	}
 
+	protected Token addToken(int sennaStart, int sennaEnd, int documentStart, int documentEnd) {
+		if (tokens instanceof TokenTable) {
+			TokenTable table = (TokenTable) tokens;
+			return table.get(table.add(null, sennaStart, sennaEnd, documentStart, documentEnd));
+		}
+		Token token = new Token(this, sennaStart, sennaEnd, documentStart, documentEnd);
+		addToken(token);
+		return token;
+	}
+
 }
\ No newline at end of file
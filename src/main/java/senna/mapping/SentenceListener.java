@@ -0,0 +1,11 @@
+package senna.mapping;
+
+/**
+ * Receives sentences as soon as SENNA's output for them has been parsed, while
+ * later sentences of the same document are still being processed.
+ */
+public interface SentenceListener {
+
+	void sentenceCompleted(Sentence sentence);
+
+}
@@ -0,0 +1,210 @@
+package senna.mapping;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import senna.Option;
+import senna.mapping.TagDictionary.TagSet;
+
+/**
+ * The token columns SENNA returned for one sentence, detached from its document
+ * so they can be replayed into any sentence with the same SENNA text. Tags are
+ * the canonical instances of the {@link TagDictionary}, so a result only holds
+ * references to them.
+ */
+public class SentenceResult {
+
+	private static final int OBJECT_SIZE = 16;
+	private static final int ARRAY_SIZE = 16;
+	private static final int REFERENCE_SIZE = 8;
+
+	private final Option<?>[] options;
+	private final int[] offsets;
+	private final String[] features;
+	private final String[][] srlValues;
+
+	private SentenceResult(Option<?>[] options, int[] offsets, String[] features, String[][] srlValues) {
+		this.options = options;
+		this.offsets = offsets;
+		this.features = features;
+		this.srlValues = srlValues;
+	}
+
+	/**
+	 * @return the result of a sentence SENNA has completed
+	 */
+	public static SentenceResult capture(Sentence sentence) {
+		List<Token> tokens = sentence.tokens;
+		List<Option<?>> options = new ArrayList<>();
+		for (Token token : tokens) {
+			for (Option<?> option : token.getFeatures().keySet()) {
+				if (!options.contains(option)) {
+					options.add(option);
+				}
+			}
+		}
+		int[] offsets = new int[tokens.size() * 2];
+		String[] features = new String[tokens.size() * options.size()];
+		String[][] srlValues = new String[tokens.size()][];
+		for (int tokenNumber = 0; tokenNumber < tokens.size(); tokenNumber++) {
+			Token token = tokens.get(tokenNumber);
+			offsets[tokenNumber * 2] = token.getSennaStart() - sentence.sennaStart;
+			offsets[tokenNumber * 2 + 1] = token.getSennaEnd() - sentence.sennaStart;
+			Map<Option<?>, String> tokenFeatures = token.getFeatures();
+			for (int optionNumber = 0; optionNumber < options.size(); optionNumber++) {
+				features[tokenNumber * options.size() + optionNumber] = tokenFeatures.get(options.get(optionNumber));
+			}
+			if (token.getSrlValues() != null) {
+				srlValues[tokenNumber] = token.getSrlValues().toArray(new String[0]);
+			}
+		}
+		return new SentenceResult(options.toArray(new Option<?>[0]), offsets, features, srlValues);
+	}
+
+	/**
+	 * Adds the tokens to a sentence with the same SENNA text that has not been
+	 * processed, or sets the tags of its user tokens. Tags of a sentence that
+	 * already has the tokens, e.g. from the result of another task group, are set
+	 * by token position.
+	 */
+	public void replay(Sentence sentence) {
+		int tokenCount = getTokenCount();
+		boolean existingTokens = sentence.userTokens || !sentence.tokens.isEmpty();
+		if (existingTokens && sentence.tokens.size() != tokenCount) {
+			throw new IllegalStateException(
+					"result has " + tokenCount + " tokens, sentence has " + sentence.tokens.size());
+		}
+		for (int tokenNumber = 0; tokenNumber < tokenCount; tokenNumber++) {
+			Token token;
+			if (existingTokens) {
+				token = sentence.tokens.get(tokenNumber);
+			} else {
+				int start = offsets[tokenNumber * 2];
+				int end = offsets[tokenNumber * 2 + 1];
+				token = sentence.addToken(sentence.sennaStart + start, sentence.sennaStart + end,
+						sentence.documentStart + start, sentence.documentStart + end);
+			}
+			for (int optionNumber = 0; optionNumber < options.length; optionNumber++) {
+				String value = features[tokenNumber * options.length + optionNumber];
+				if (value != null) {
+					token.setFeature(options[optionNumber], value);
+				}
+			}
+			String[] tokenSrlValues = srlValues[tokenNumber];
+			// results without SRL have empty values, which must not replace those of another result
+			if (tokenSrlValues != null && (tokenSrlValues.length > 0 || token.getSrlValues() == null)) {
+				token.setSrlValues(tokenSrlValues.length > 0 ? new ArrayList<>(Arrays.asList(tokenSrlValues))
+						: Collections.<String>emptyList());
+			}
+		}
+		sentence.status = SentenceStatus.COMPLETED;
+	}
+
+	/**
+	 * Replays the result into a sentence whose parsing was interrupted, dropping
+	 * the tokens SENNA had already added to it.
+	 */
+	public void replace(Sentence sentence) {
+		sentence.clearSennaTokens();
+		replay(sentence);
+	}
+
+	/**
+	 * Writes the result in the format read by
+	 * {@link #read(DataInput, TagDictionary)}.
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeInt(getTokenCount());
+		out.writeByte(options.length);
+		for (Option<?> option : options) {
+			out.writeByte(TagDictionary.codeSpace(option));
+		}
+		for (int offset : offsets) {
+			out.writeShort(offset);
+		}
+		for (String value : features) {
+			writeValue(out, value);
+		}
+		for (String[] tokenSrlValues : srlValues) {
+			out.writeShort(tokenSrlValues != null ? tokenSrlValues.length : -1);
+			if (tokenSrlValues != null) {
+				for (String value : tokenSrlValues) {
+					writeValue(out, value);
+				}
+			}
+		}
+	}
+
+	private static void writeValue(DataOutput out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	/**
+	 * Reads a result written by {@link #write(DataOutput)}, with the canonical tag
+	 * instances of the given dictionary.
+	 */
+	public static SentenceResult read(DataInput in, TagDictionary dictionary) throws IOException {
+		int tokenCount = in.readInt();
+		Option<?>[] options = new Option<?>[in.readByte()];
+		TagSet[] tagSets = new TagSet[options.length];
+		for (int optionNumber = 0; optionNumber < options.length; optionNumber++) {
+			options[optionNumber] = TagDictionary.OPTIONS.get(in.readByte());
+			tagSets[optionNumber] = dictionary.get(options[optionNumber]);
+		}
+		int[] offsets = new int[tokenCount * 2];
+		for (int i = 0; i < offsets.length; i++) {
+			// sentences are limited to DocumentBuilder.SENNA_MAX_SENTENCE_SIZE
+			offsets[i] = in.readShort();
+		}
+		String[] features = new String[tokenCount * options.length];
+		for (int i = 0; i < features.length; i++) {
+			features[i] = readValue(in, tagSets[i % options.length]);
+		}
+		String[][] srlValues = new String[tokenCount][];
+		for (int tokenNumber = 0; tokenNumber < tokenCount; tokenNumber++) {
+			int count = in.readShort();
+			if (count >= 0) {
+				srlValues[tokenNumber] = new String[count];
+				for (int i = 0; i < count; i++) {
+					srlValues[tokenNumber][i] = readValue(in, dictionary.getSrlArguments());
+				}
+			}
+		}
+		return new SentenceResult(options, offsets, features, srlValues);
+	}
+
+	private static String readValue(DataInput in, TagSet tagSet) throws IOException {
+		return in.readBoolean() ? tagSet.canonical(in.readUTF()) : null;
+	}
+
+	public int getTokenCount() {
+		return offsets.length / 2;
+	}
+
+	/**
+	 * @return the approximate number of bytes held by this result, not counting
+	 *         the shared tag instances
+	 */
+	public long estimateSize() {
+		long size = OBJECT_SIZE + ARRAY_SIZE + (long) options.length * REFERENCE_SIZE;
+		size += ARRAY_SIZE + (long) offsets.length * 4;
+		size += ARRAY_SIZE + (long) features.length * REFERENCE_SIZE;
+		size += ARRAY_SIZE + (long) srlValues.length * REFERENCE_SIZE;
+		for (String[] tokenSrlValues : srlValues) {
+			if (tokenSrlValues != null) {
+				size += ARRAY_SIZE + (long) tokenSrlValues.length * REFERENCE_SIZE;
+			}
+		}
+		return size;
+	}
+
+}
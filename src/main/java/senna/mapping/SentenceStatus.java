@@ -0,0 +1,23 @@
+package senna.mapping;
+
+/**
+ * How far SENNA got with a sentence.
+ */
+public enum SentenceStatus {
+
+	/** Not executed yet. */
+	PENDING,
+	/** The results of SENNA have been added to the sentence. */
+	COMPLETED,
+	/**
+	 * SENNA died on the sentence every time it was sent, so it has no results.
+	 */
+	FAILED,
+	/**
+	 * Not completed before a time limit of the execution passed, see
+	 * {@code SennaBuilder.withTimeoutPolicy}. Like a failed sentence, it has no
+	 * SENNA tags, user tokens are kept without them.
+	 */
+	SKIPPED
+
+}
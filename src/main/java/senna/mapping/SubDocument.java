@@ -12,58 +12,92 @@ public class SubDocument extends Document {
 	protected Integer documentOffet;
 	protected Integer sennaOffet;
 	protected Map<Sentence, Sentence> sentenceMapping;
-	protected Map<Token, Token> tokenMapping;
 
 	public SubDocument(Document document, Sentence fromSentence, Sentence toSentence) {
-		super(document.documentText.substring(fromSentence.documentStart, toSentence.documentEnd));
+		this(document, between(document, fromSentence, toSentence));
+	}
+
+	/**
+	 * Creates a sub document of some sentences of a document, which do not have to
+	 * be consecutive.
+	 * 
+	 * @param sentences
+	 *            sentences of the document in document order
+	 */
+	public SubDocument(Document document, List<Sentence> sentences) {
+		super(document.documentText.substring(sentences.get(0).documentStart,
+				sentences.get(sentences.size() - 1).documentEnd));
+		Sentence fromSentence = sentences.get(0);
 		this.original = document;
+		this.tagDictionary = document.tagDictionary;
 		this.documentOffet = fromSentence.documentStart;
 		this.sennaOffet = fromSentence.sennaStart;
 
 		List<Sentence> subSentences = new ArrayList<>();
 		this.sentenceMapping = new LinkedHashMap<>();
-		this.tokenMapping = new LinkedHashMap<>();
+		for (Sentence sentence : sentences) {
+			Sentence subSentence = new Sentence(sentence.documentId,
+					sentence.documentStart - fromSentence.documentStart,
+					sentence.documentEnd - fromSentence.documentStart);
+			subSentence.userTokens = sentence.userTokens;
+			subSentences.add(subSentence);
+			sentenceMapping.put(subSentence, sentence);
+			if (sentence.userTokens) {
+				for (Token token : sentence.tokens) {
+					Token subToken = new Token(token.getDocumentId(),
+							token.getDocumentStart() - fromSentence.documentStart,
+							token.getDocumentEnd() - fromSentence.documentStart);
+					subSentence.addToken(subToken);
+				}
+			}
+		}
+
+		setSentences(subSentences);
+	}
+
+	private static List<Sentence> between(Document document, Sentence fromSentence, Sentence toSentence) {
+		List<Sentence> sentences = new ArrayList<>();
 		for (Sentence sentence : document.sentences) {
 			if (sentence.documentStart >= fromSentence.documentStart
 					&& sentence.documentEnd <= toSentence.documentEnd) {
-				Sentence subSentence = new Sentence(sentence.documentId,
-						sentence.documentStart - fromSentence.documentStart,
-						sentence.documentEnd - fromSentence.documentStart);
-				subSentence.userTokens = sentence.userTokens;
-				subSentences.add(subSentence);
-				sentenceMapping.put(subSentence, sentence);
-				if (sentence.userTokens) {
-					for (Token token : sentence.tokens) {
-						Token subToken = new Token(token.documentId, token.documentStart - fromSentence.documentStart,
-								token.documentEnd - fromSentence.documentStart);
-						subSentence.addToken(subToken);
-						tokenMapping.put(subToken, token);
-					}
-				}
+				sentences.add(sentence);
 			}
 		}
+		return sentences;
+	}
 
-		setSentences(subSentences);
+	/**
+	 * @return the sentence of the original document a sentence of this document
+	 *         was created for
+	 */
+	public Sentence getOriginal(Sentence sentence) {
+		return sentenceMapping.get(sentence);
 	}
 
 	public void mergeToOriginal() {
 		for (Sentence sentence : sentences) {
-			Sentence originalSentence = sentenceMapping.get(sentence);
-			for (Token token : sentence.tokens) {
-				if (sentence.userTokens) {
-					Token originalToken = tokenMapping.get(token);
-					originalToken.features = token.features;
-					originalToken.srlValues = token.srlValues;
-				} else {
-					Token originalToken = new Token(originalSentence, sennaOffet + token.sennaStart,
-							sennaOffet + token.sennaEnd, documentOffet + token.sennaStart,
-							documentOffet + token.sennaEnd);
-					originalSentence.addToken(originalToken);
-					originalToken.features = token.features;
-					originalToken.srlValues = token.srlValues;
-				}
+			mergeToOriginal(sentence);
+		}
+	}
+
+	public Sentence mergeToOriginal(Sentence sentence) {
+		Sentence originalSentence = sentenceMapping.get(sentence);
+		for (int tokenNumber = 0; tokenNumber < sentence.tokens.size(); tokenNumber++) {
+			Token token = sentence.tokens.get(tokenNumber);
+			Token originalToken;
+			if (sentence.userTokens) {
+				originalToken = originalSentence.tokens.get(tokenNumber);
+			} else {
+				originalToken = originalSentence.addToken(
+						originalSentence.sennaStart + token.getSennaStart() - sentence.sennaStart,
+						originalSentence.sennaStart + token.getSennaEnd() - sentence.sennaStart,
+						originalSentence.documentStart + token.getDocumentStart() - sentence.documentStart,
+						originalSentence.documentStart + token.getDocumentEnd() - sentence.documentStart);
 			}
+			originalToken.copyFeatures(token);
 		}
+		originalSentence.status = sentence.status;
+		return originalSentence;
 	}
 
 }
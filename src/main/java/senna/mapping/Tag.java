@@ -0,0 +1,96 @@
+package senna.mapping;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import senna.Util;
+
+/**
+ * Canonical instance of a tag of a {@link TagDictionary.TagSet}, with its
+ * prefix, type and bracket elements parsed once when the tag is first seen.
+ */
+public final class Tag implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Element of {@link #getBrackets()} closing a bracket.
+	 */
+	public static final String CLOSING_BRACKET = ")";
+
+	private static final Pattern BRACKETTAGS_SPLIT_PATTERN = Pattern.compile("\\*?([\\(\\)][^\\(\\)\\*]*)\\*?(.*)");
+
+	private final String value;
+	private final int code;
+	private final TagPrefix prefix;
+	private final String type;
+	private final List<String> brackets;
+
+	Tag(TagDictionary dictionary, String value, int code) {
+		this.value = value;
+		this.code = code;
+		this.prefix = TagPrefix.of(value);
+		switch (prefix) {
+		case OUTSIDE:
+			this.type = null;
+			break;
+		case NONE:
+			this.type = value;
+			break;
+		default:
+			this.type = dictionary.canonicalType(value.substring(2));
+		}
+		this.brackets = parseBrackets(dictionary, value);
+	}
+
+	private static List<String> parseBrackets(TagDictionary dictionary, String value) {
+		if (value.indexOf('(') < 0 && value.indexOf(')') < 0) {
+			return Collections.emptyList();
+		}
+		List<String> brackets = new ArrayList<>();
+		for (String bracket : Util.readColumnLine(value, BRACKETTAGS_SPLIT_PATTERN)) {
+			brackets.add(bracket.startsWith("(") ? dictionary.canonicalType(bracket.substring(1)) : CLOSING_BRACKET);
+		}
+		return Collections.unmodifiableList(brackets);
+	}
+
+	public String getValue() {
+		return value;
+	}
+
+	/**
+	 * @return the code of the tag in its tag set, {@link TagDictionary#NO_CODE} if
+	 *         the tag set was full
+	 */
+	public int getCode() {
+		return code;
+	}
+
+	public TagPrefix getPrefix() {
+		return prefix;
+	}
+
+	/**
+	 * @return the canonical type without IOBES prefix, null for
+	 *         {@link TagPrefix#OUTSIDE}
+	 */
+	public String getType() {
+		return type;
+	}
+
+	/**
+	 * @return the types of the opened brackets and {@link #CLOSING_BRACKET} for
+	 *         each closed bracket, in the order of the tag
+	 */
+	public List<String> getBrackets() {
+		return brackets;
+	}
+
+	@Override
+	public String toString() {
+		return value;
+	}
+
+}
@@ -0,0 +1,198 @@
+package senna.mapping;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import senna.Option;
+
+/**
+ * Canonical {@link Tag} instances and their codes, with one {@link TagSet} per
+ * {@link Option} and one for the SRL argument columns. The tag sets are seeded
+ * with SENNA's label sets, so common tags have the same codes in every
+ * dictionary, and only grow by unknown tags up to {@link #MAX_CODES} per set.
+ * Types of IOBES and bracket tags are shared between the sets, so equal types
+ * are the same instance.
+ */
+public class TagDictionary implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	public static final int MAX_CODES = 0xFFFE;
+	public static final int NO_CODE = -1;
+
+	static final List<Option<?>> OPTIONS = Arrays.<Option<?>>asList(Option.POS, Option.CHK, Option.NER, Option.SRL,
+			Option.PSG);
+	static final int SRL_ARGUMENTS = OPTIONS.size();
+
+	private static final List<String> POS_TAGS = Arrays.asList("CC", "CD", "DT", "EX", "FW", "IN", "JJ", "JJR", "JJS",
+			"LS", "MD", "NN", "NNS", "NNP", "NNPS", "PDT", "POS", "PRP", "PRP$", "RB", "RBR", "RBS", "RP", "SYM", "TO",
+			"UH", "VB", "VBD", "VBG", "VBN", "VBP", "VBZ", "WDT", "WP", "WP$", "WRB", "#", "$", ".", ",", ":", "``",
+			"''", "-LRB-", "-RRB-");
+	private static final List<String> CHK_TYPES = Arrays.asList("NP", "VP", "PP", "ADVP", "ADJP", "SBAR", "PRT",
+			"INTJ", "CONJP", "LST", "UCP");
+	private static final List<String> NER_TYPES = Arrays.asList("PER", "LOC", "ORG", "MISC");
+	private static final List<String> SRL_TYPES = Arrays.asList("V", "A0", "A1", "A2", "A3", "A4", "A5", "AA",
+			"AM-ADV", "AM-CAU", "AM-DIR", "AM-DIS", "AM-EXT", "AM-LOC", "AM-MNR", "AM-MOD", "AM-NEG", "AM-PNC",
+			"AM-PRD", "AM-REC", "AM-TMP", "C-A0", "C-A1", "R-A0", "R-A1");
+	private static final List<String> PSG_TYPES = Arrays.asList("S1", "S", "SBAR", "SBARQ", "SINV", "SQ", "NP", "VP",
+			"PP", "ADJP", "ADVP", "PRN", "QP", "WHNP", "WHADVP", "WHPP", "WHADJP", "FRAG", "UCP", "NX", "X");
+
+	private static final TagDictionary SHARED = new TagDictionary();
+
+	private final TagSet[] tagSets = new TagSet[OPTIONS.size() + 1];
+	private final ConcurrentHashMap<String, String> types = new ConcurrentHashMap<>();
+
+	public TagDictionary() {
+		for (int i = 0; i < tagSets.length; i++) {
+			tagSets[i] = new TagSet(this);
+		}
+		for (String tag : POS_TAGS) {
+			get(Option.POS).get(tag);
+		}
+		seedChunkTags(get(Option.CHK), CHK_TYPES);
+		seedChunkTags(get(Option.NER), NER_TYPES);
+		get(Option.SRL).get("-");
+		seedChunkTags(getSrlArguments(), SRL_TYPES);
+		get(Option.PSG).get("*");
+		for (String type : PSG_TYPES) {
+			canonicalType(type);
+		}
+	}
+
+	private static void seedChunkTags(TagSet tagSet, List<String> types) {
+		tagSet.get(TagPrefix.OUTSIDE.getPrefix());
+		tagSet.get("*");
+		tagSet.get("*)");
+		for (String type : types) {
+			for (TagPrefix prefix : Arrays.asList(TagPrefix.BEGIN, TagPrefix.INSIDE, TagPrefix.END, TagPrefix.SINGLE)) {
+				tagSet.get(prefix.getPrefix() + type);
+			}
+			tagSet.get("(" + type + "*");
+			tagSet.get("(" + type + "*)");
+		}
+	}
+
+	/**
+	 * @return the dictionary shared by all documents of this JVM that were not
+	 *         created with their own
+	 */
+	public static TagDictionary getShared() {
+		return SHARED;
+	}
+
+	static TagDictionary of(Document document) {
+		return document != null && document.tagDictionary != null ? document.tagDictionary : SHARED;
+	}
+
+	public TagSet get(Option<?> option) {
+		return tagSets[codeSpace(option)];
+	}
+
+	/**
+	 * @return the tag set of the SRL columns following the verb column
+	 */
+	public TagSet getSrlArguments() {
+		return tagSets[SRL_ARGUMENTS];
+	}
+
+	/**
+	 * @return the canonical instance of a type of an IOBES or bracket tag
+	 */
+	public String canonicalType(String type) {
+		if (type == null) {
+			return null;
+		}
+		String canonical = types.get(type);
+		if (canonical != null) {
+			return canonical;
+		} else if (types.size() >= MAX_CODES) {
+			return type;
+		}
+		canonical = types.putIfAbsent(type, type);
+		return canonical != null ? canonical : type;
+	}
+
+	TagSet get(int codeSpace) {
+		return tagSets[codeSpace];
+	}
+
+	static int codeSpace(Option<?> option) {
+		for (int i = 0; i < OPTIONS.size(); i++) {
+			if (OPTIONS.get(i) == option) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("unknown option " + option);
+	}
+
+	/**
+	 * The tags of one column, coded in the order they were first seen.
+	 */
+	public static class TagSet implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final TagDictionary dictionary;
+		private final ConcurrentHashMap<String, Tag> tags = new ConcurrentHashMap<>();
+		private volatile Tag[] codes = new Tag[64];
+		private volatile int size;
+
+		private TagSet(TagDictionary dictionary) {
+			this.dictionary = dictionary;
+		}
+
+		/**
+		 * @return the canonical tag, which is added to the set if it is unknown and
+		 *         the set is not full
+		 */
+		public Tag get(String value) {
+			Tag tag = tags.get(value);
+			if (tag != null) {
+				return tag;
+			}
+			synchronized (this) {
+				tag = tags.get(value);
+				if (tag != null) {
+					return tag;
+				}
+				if (size == MAX_CODES) {
+					return new Tag(dictionary, value, NO_CODE);
+				}
+				tag = new Tag(dictionary, value, size);
+				Tag[] current = codes;
+				if (size == current.length) {
+					current = Arrays.copyOf(current, Math.min(current.length * 2, MAX_CODES));
+				}
+				current[size] = tag;
+				codes = current;
+				tags.put(value, tag);
+				size++;
+				return tag;
+			}
+		}
+
+		/**
+		 * @return the canonical instance of a tag value
+		 */
+		public String canonical(String value) {
+			return get(value).getValue();
+		}
+
+		/**
+		 * @return the code of the tag, or {@link TagDictionary#NO_CODE} if the set
+		 *         is full
+		 */
+		public int encode(String value) {
+			return get(value).getCode();
+		}
+
+		public Tag decode(int code) {
+			return codes[code];
+		}
+
+		public int size() {
+			return size;
+		}
+	}
+
+}
@@ -0,0 +1,38 @@
+package senna.mapping;
+
+/**
+ * Prefix of an IOB/IOBES tag, {@link #NONE} for tags without one like POS tags
+ * or bracket tags.
+ */
+public enum TagPrefix {
+	BEGIN("B-"), INSIDE("I-"), END("E-"), SINGLE("S-"), OUTSIDE("O"), NONE("");
+
+	private final String prefix;
+
+	private TagPrefix(String prefix) {
+		this.prefix = prefix;
+	}
+
+	public String getPrefix() {
+		return prefix;
+	}
+
+	static TagPrefix of(String tag) {
+		if (tag.equals(OUTSIDE.prefix)) {
+			return OUTSIDE;
+		} else if (tag.length() >= 2 && tag.charAt(1) == '-') {
+			switch (tag.charAt(0)) {
+			case 'B':
+				return BEGIN;
+			case 'I':
+				return INSIDE;
+			case 'E':
+				return END;
+			case 'S':
+				return SINGLE;
+			}
+		}
+		return NONE;
+	}
+
+}
@@ -11,11 +11,12 @@ public class Token extends SimpleMapping {
 
 	protected Sentence sentence;
 
-	protected Map<Option<?>, String> features = new LinkedHashMap<>();
+	protected Map<Option<?>, String> features;
 	protected List<String> srlValues;
 
 	public Token(Object documentId, Integer documentStart, Integer documentEnd) {
 		super(null);
+		this.features = new LinkedHashMap<>();
 		this.documentId = documentId;
 		this.documentStart = documentStart;
 		this.documentEnd = documentEnd;
@@ -24,6 +25,7 @@ public class Token extends SimpleMapping {
 	protected Token(Sentence sentence, Integer sennaStart, Integer sennaEnd, Integer documentStart,
 			Integer documentEnd) {
 		super(sentence.sennaDocument);
+		this.features = new LinkedHashMap<>();
 		this.sentence = sentence;
 		this.sennaStart = sennaStart;
 		this.sennaEnd = sennaEnd;
@@ -31,24 +33,33 @@ public class Token extends SimpleMapping {
 		this.documentEnd = documentEnd;
 	}
 
+	/**
+	 * Constructor of {@link TokenView}, which keeps its data in the sentence's
+	 * {@link TokenTable} instead of the fields.
+	 */
+	Token(Sentence sentence) {
+		super(sentence.sennaDocument);
+		this.sentence = sentence;
+	}
+
 	public Sentence getSentence() {
 		return sentence;
 	}
 
 	public Integer getDocumentSentenceStart() {
-		return documentStart - sentence.documentStart;
+		return getDocumentStart() - sentence.documentStart;
 	}
 
 	public Integer getDocumentSentenceEnd() {
-		return documentEnd - sentence.documentEnd;
+		return getDocumentEnd() - sentence.documentEnd;
 	}
 
 	public Integer getSennaSentenceStart() {
-		return sennaStart - sentence.sennaStart;
+		return getSennaStart() - sentence.sennaStart;
 	}
 
 	public Integer getSennaSentenceEnd() {
-		return sennaEnd - sentence.sennaEnd;
+		return getSennaEnd() - sentence.sennaEnd;
 	}
 
 	public Map<Option<?>, String> getFeatures() {
@@ -67,4 +78,30 @@ public class Token extends SimpleMapping {
 		return srlValues.get(verbNumber);
 	}
 
+	protected void setFeature(Option<?> option, String value) {
+		features.put(option, value);
+	}
+
+	protected void setSrlValues(List<String> srlValues) {
+		this.srlValues = srlValues;
+	}
+
+	protected void setSennaOffsets(int sennaStart, int sennaEnd) {
+		this.sennaStart = sennaStart;
+		this.sennaEnd = sennaEnd;
+	}
+
+	void clearTags() {
+		this.features = new LinkedHashMap<>();
+		this.srlValues = null;
+	}
+
+	/**
+	 * Takes over the SENNA results of a token of a sub or combined document.
+	 */
+	protected void copyFeatures(Token token) {
+		this.features = token.getFeatures();
+		this.srlValues = token.getSrlValues();
+	}
+
 }
\ No newline at end of file
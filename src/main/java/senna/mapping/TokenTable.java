@@ -0,0 +1,274 @@
+package senna.mapping;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import senna.Option;
+
+/**
+ * Columnar token storage of a sentence of a compact {@link Document}. Offsets
+ * are kept in int arrays and tags as chars coded by the document's
+ * {@link TagDictionary}; {@link #get(int)} returns a {@link TokenView} reading
+ * from and writing to the arrays.
+ */
+class TokenTable extends AbstractList<Token> implements RandomAccess, Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private static final char ABSENT = 0;
+	private static final char UNCODED = 0xFFFF;
+
+	protected final Sentence sentence;
+	protected final TagDictionary dictionary;
+
+	private int size;
+	private Object[] documentIds;
+	private int[] documentStarts;
+	private int[] documentEnds;
+	private int[] sennaStarts;
+	private int[] sennaEnds;
+
+	private final char[][] features = new char[TagDictionary.OPTIONS.size()][];
+	private int srlTokens;
+	private int[] srlEnds;
+	private char[] srlCodes;
+	private Map<Long, String> uncodedTags;
+
+	TokenTable(Sentence sentence, TagDictionary dictionary, List<Token> tokens) {
+		this.sentence = sentence;
+		this.dictionary = dictionary;
+		int capacity = Math.max(tokens.size(), 8);
+		this.documentStarts = new int[capacity];
+		this.documentEnds = new int[capacity];
+		this.sennaStarts = new int[capacity];
+		this.sennaEnds = new int[capacity];
+		for (Token token : tokens) {
+			int index = add(token.getDocumentId(), 0, 0, token.getDocumentStart(), token.getDocumentEnd());
+			if (token.getSennaStart() != null) {
+				setSennaOffsets(index, token.getSennaStart(), token.getSennaEnd());
+			}
+			for (Map.Entry<Option<?>, String> feature : token.getFeatures().entrySet()) {
+				setFeature(index, feature.getKey(), feature.getValue());
+			}
+			if (token.getSrlValues() != null) {
+				setSrlValues(index, token.getSrlValues());
+			}
+		}
+	}
+
+	@Override
+	public Token get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+		}
+		return new TokenView(this, index);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	int add(Object documentId, int sennaStart, int sennaEnd, int documentStart, int documentEnd) {
+		if (size == documentStarts.length) {
+			int capacity = size * 2;
+			documentStarts = Arrays.copyOf(documentStarts, capacity);
+			documentEnds = Arrays.copyOf(documentEnds, capacity);
+			sennaStarts = Arrays.copyOf(sennaStarts, capacity);
+			sennaEnds = Arrays.copyOf(sennaEnds, capacity);
+			if (documentIds != null) {
+				documentIds = Arrays.copyOf(documentIds, capacity);
+			}
+			for (int i = 0; i < features.length; i++) {
+				if (features[i] != null) {
+					features[i] = Arrays.copyOf(features[i], capacity);
+				}
+			}
+		}
+		if (documentId != null) {
+			if (documentIds == null) {
+				documentIds = new Object[documentStarts.length];
+			}
+			documentIds[size] = documentId;
+		}
+		documentStarts[size] = documentStart;
+		documentEnds[size] = documentEnd;
+		sennaStarts[size] = sennaStart;
+		sennaEnds[size] = sennaEnd;
+		modCount++;
+		return size++;
+	}
+
+	Object getDocumentId(int index) {
+		return documentIds != null ? documentIds[index] : null;
+	}
+
+	int getDocumentStart(int index) {
+		return documentStarts[index];
+	}
+
+	int getDocumentEnd(int index) {
+		return documentEnds[index];
+	}
+
+	int getSennaStart(int index) {
+		return sennaStarts[index];
+	}
+
+	int getSennaEnd(int index) {
+		return sennaEnds[index];
+	}
+
+	void setSennaOffsets(int index, int sennaStart, int sennaEnd) {
+		sennaStarts[index] = sennaStart;
+		sennaEnds[index] = sennaEnd;
+	}
+
+	String getFeature(int index, Option<?> option) {
+		int codeSpace = TagDictionary.codeSpace(option);
+		char[] column = features[codeSpace];
+		return column != null ? decode(codeSpace, index, column[index]) : null;
+	}
+
+	Map<Option<?>, String> getFeatures(int index) {
+		Map<Option<?>, String> tokenFeatures = new LinkedHashMap<>();
+		for (int codeSpace = 0; codeSpace < features.length; codeSpace++) {
+			char[] column = features[codeSpace];
+			if (column != null && column[index] != ABSENT) {
+				tokenFeatures.put(TagDictionary.OPTIONS.get(codeSpace), decode(codeSpace, index, column[index]));
+			}
+		}
+		return tokenFeatures;
+	}
+
+	void setFeature(int index, Option<?> option, String tag) {
+		int codeSpace = TagDictionary.codeSpace(option);
+		if (features[codeSpace] == null) {
+			features[codeSpace] = new char[documentStarts.length];
+		}
+		features[codeSpace][index] = encode(codeSpace, index, tag);
+	}
+
+	String getSrlValue(int index, int verbNumber) {
+		if (index >= srlTokens) {
+			throw new IndexOutOfBoundsException("verb " + verbNumber);
+		}
+		int start = index > 0 ? srlEnds[index - 1] : 0;
+		if (verbNumber >= srlEnds[index] - start) {
+			throw new IndexOutOfBoundsException("verb " + verbNumber);
+		}
+		return decode(TagDictionary.SRL_ARGUMENTS, start + verbNumber, srlCodes[start + verbNumber]);
+	}
+
+	List<String> getSrlValues(int index) {
+		if (index >= srlTokens) {
+			return Collections.emptyList();
+		}
+		int start = index > 0 ? srlEnds[index - 1] : 0;
+		List<String> values = new ArrayList<>(srlEnds[index] - start);
+		for (int position = start; position < srlEnds[index]; position++) {
+			values.add(decode(TagDictionary.SRL_ARGUMENTS, position, srlCodes[position]));
+		}
+		return values;
+	}
+
+	/**
+	 * SRL values are stored one token after the other, so they have to be set in
+	 * token order; setting them again keeps the position if the count matches.
+	 */
+	void setSrlValues(int index, List<String> values) {
+		if (srlEnds == null) {
+			srlEnds = new int[documentStarts.length];
+			srlCodes = new char[documentStarts.length * 2];
+		} else if (srlEnds.length < documentStarts.length) {
+			srlEnds = Arrays.copyOf(srlEnds, documentStarts.length);
+		}
+		int start;
+		if (index < srlTokens) {
+			start = index > 0 ? srlEnds[index - 1] : 0;
+			if (srlEnds[index] - start != values.size()) {
+				throw new IllegalStateException("srl values of token " + index + " can not be resized");
+			}
+		} else {
+			start = srlTokens > 0 ? srlEnds[srlTokens - 1] : 0;
+			for (; srlTokens < index; srlTokens++) {
+				srlEnds[srlTokens] = start;
+			}
+			if (start + values.size() > srlCodes.length) {
+				srlCodes = Arrays.copyOf(srlCodes, Math.max(srlCodes.length * 2, start + values.size()));
+			}
+			srlEnds[index] = start + values.size();
+			srlTokens = index + 1;
+		}
+		for (int i = 0; i < values.size(); i++) {
+			srlCodes[start + i] = encode(TagDictionary.SRL_ARGUMENTS, start + i, values.get(i));
+		}
+	}
+
+	/**
+	 * @return a table with the tokens of this one, without tags
+	 */
+	TokenTable withoutTags() {
+		TokenTable table = new TokenTable(sentence, dictionary, Collections.<Token>emptyList());
+		for (int index = 0; index < size; index++) {
+			table.add(getDocumentId(index), sennaStarts[index], sennaEnds[index], documentStarts[index],
+					documentEnds[index]);
+		}
+		return table;
+	}
+
+	/**
+	 * Copies features and SRL values of a token of a table using the same
+	 * dictionary without decoding them.
+	 */
+	void copyFeatures(int index, TokenTable source, int sourceIndex) {
+		for (int codeSpace = 0; codeSpace < features.length; codeSpace++) {
+			char[] column = source.features[codeSpace];
+			if (column != null) {
+				if (features[codeSpace] == null) {
+					features[codeSpace] = new char[documentStarts.length];
+				}
+				features[codeSpace][index] = column[sourceIndex] == UNCODED
+						? encode(codeSpace, index, source.uncodedTags.get(key(codeSpace, sourceIndex)))
+						: column[sourceIndex];
+			}
+		}
+		setSrlValues(index, source.getSrlValues(sourceIndex));
+	}
+
+	private char encode(int codeSpace, int position, String tag) {
+		if (tag == null) {
+			return ABSENT;
+		}
+		int code = dictionary.get(codeSpace).encode(tag);
+		if (code == TagDictionary.NO_CODE) {
+			if (uncodedTags == null) {
+				uncodedTags = new HashMap<>();
+			}
+			uncodedTags.put(key(codeSpace, position), tag);
+			return UNCODED;
+		}
+		return (char) (code + 1);
+	}
+
+	private String decode(int codeSpace, int position, char code) {
+		if (code == ABSENT) {
+			return null;
+		} else if (code == UNCODED) {
+			return uncodedTags.get(key(codeSpace, position));
+		}
+		return dictionary.get(codeSpace).decode(code - 1).getValue();
+	}
+
+	private static Long key(int codeSpace, int position) {
+		return ((long) codeSpace << 32) | position;
+	}
+
+}
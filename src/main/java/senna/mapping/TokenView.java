@@ -0,0 +1,119 @@
+package senna.mapping;
+
+import java.util.List;
+import java.util.Map;
+
+import senna.Option;
+
+/**
+ * A token of a compact document, reading its offsets and tags from the
+ * {@link TokenTable} of its sentence.
+ */
+class TokenView extends Token {
+	private static final long serialVersionUID = 1L;
+
+	private final TokenTable table;
+	private final int index;
+
+	TokenView(TokenTable table, int index) {
+		super(table.sentence);
+		this.table = table;
+		this.index = index;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <C> C getDocumentId() {
+		return (C) table.getDocumentId(index);
+	}
+
+	@Override
+	public Integer getDocumentStart() {
+		return table.getDocumentStart(index);
+	}
+
+	@Override
+	public Integer getDocumentEnd() {
+		return table.getDocumentEnd(index);
+	}
+
+	@Override
+	public String getDocumentText() {
+		return sennaDocument.documentText.substring(table.getDocumentStart(index), table.getDocumentEnd(index));
+	}
+
+	@Override
+	public Integer getSennaStart() {
+		return table.getSennaStart(index);
+	}
+
+	@Override
+	public Integer getSennaEnd() {
+		return table.getSennaEnd(index);
+	}
+
+	@Override
+	public String getSennaText() {
+		return sennaDocument.sennaText.substring(table.getSennaStart(index), table.getSennaEnd(index));
+	}
+
+	@Override
+	public Map<Option<?>, String> getFeatures() {
+		return table.getFeatures(index);
+	}
+
+	@Override
+	public List<String> getSrlValues() {
+		return table.getSrlValues(index);
+	}
+
+	@Override
+	public String getFeature(Option<? extends MultiToken> option) {
+		return table.getFeature(index, option);
+	}
+
+	@Override
+	public String getSrlValue(Integer verbNumber) {
+		return table.getSrlValue(index, verbNumber);
+	}
+
+	@Override
+	protected void setFeature(Option<?> option, String value) {
+		table.setFeature(index, option, value);
+	}
+
+	@Override
+	protected void setSrlValues(List<String> srlValues) {
+		table.setSrlValues(index, srlValues);
+	}
+
+	@Override
+	protected void setSennaOffsets(int sennaStart, int sennaEnd) {
+		table.setSennaOffsets(index, sennaStart, sennaEnd);
+	}
+
+	@Override
+	protected void copyFeatures(Token token) {
+		if (token instanceof TokenView && ((TokenView) token).table.dictionary == table.dictionary) {
+			table.copyFeatures(index, ((TokenView) token).table, ((TokenView) token).index);
+		} else {
+			for (Map.Entry<Option<?>, String> feature : token.getFeatures().entrySet()) {
+				table.setFeature(index, feature.getKey(), feature.getValue());
+			}
+			if (token.getSrlValues() != null) {
+				table.setSrlValues(index, token.getSrlValues());
+			}
+		}
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof TokenView && ((TokenView) obj).table == table && ((TokenView) obj).index == index;
+	}
+
+	@Override
+	public int hashCode() {
+		return System.identityHashCode(table) * 31 + index;
+	}
+
+}
@@ -0,0 +1,72 @@
+package senna;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import senna.mapping.Document;
+import senna.mapping.MultiToken;
+import senna.mapping.ResultParser;
+import senna.mapping.Sentence;
+import senna.mapping.SentenceStatus;
+import senna.mapping.Token;
+
+public class DiskResultCacheTest {
+
+	private static final List<String> COMMAND = Arrays.asList("senna", "-pos");
+	private static final Collection<Option<? extends MultiToken>> OPTIONS = Collections
+			.<Option<? extends MultiToken>>singletonList(Option.POS);
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static Document createDocument() {
+		List<Sentence> sentences = new ArrayList<>();
+		sentences.add(new Sentence(null, 0, 4, Arrays.asList(new Token(null, 0, 4))));
+		sentences.add(new Sentence(null, 5, 9, Arrays.asList(new Token(null, 5, 9))));
+		sentences.add(new Sentence(null, 10, 14, Arrays.asList(new Token(null, 10, 14))));
+		return new Document("John eats Mary", sentences);
+	}
+
+	@Test
+	public void onlyCompletedSentencesAreStored() throws IOException {
+		Document document = createDocument();
+		ResultParser.parse(document, "John\t 0 4\tNNP\n\neats\t 0 4\tVBZ\n\nMary\t 0 4\tNNP\n\n", OPTIONS);
+		// the process died on the second sentence after tagging its user token
+		document.getSentences().get(1).setStatus(SentenceStatus.FAILED);
+		document.getSentences().get(2).setStatus(SentenceStatus.SKIPPED);
+
+		DiskResultCache cache = new DiskResultCache(folder.getRoot(), 1024 * 1024);
+		try {
+			cache.putAll(COMMAND, document.getSentences());
+			assertEquals(1, cache.getEntryCount());
+			assertEquals(1, cache.getDiskEntryCount());
+		} finally {
+			cache.close();
+		}
+
+		// a later run reads the directory only
+		Document again = createDocument();
+		cache = new DiskResultCache(folder.getRoot(), 1024 * 1024);
+		try {
+			assertNotNull(cache.get(COMMAND, again.getSentences().get(0)));
+			assertNull(cache.get(COMMAND, again.getSentences().get(1)));
+			assertNull(cache.get(COMMAND, again.getSentences().get(2)));
+			assertEquals(1, cache.getDiskHitCount());
+		} finally {
+			cache.close();
+		}
+	}
+
+}
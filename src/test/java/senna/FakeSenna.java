@@ -0,0 +1,213 @@
+package senna;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import senna.mapping.MultiToken;
+import senna.mapping.SyntheticSennaOutput;
+
+/**
+ * Stand-in for the SENNA executable, which reads one sentence per line from
+ * stdin and writes synthetic tags in SENNA's column format, flushing after each
+ * sentence like SENNA does. It understands the tagging flags, -offsettags,
+ * -usrtokens, -iobtags and -brackettags; the output of a sentence only depends
+ * on its text. Model loading and tagging time are simulated by the system
+ * properties senna.fake.startupDelay (milliseconds) and senna.fake.tokenDelay
+ * (microseconds per token and option, weighted like the
+ * {@link SimpleCostEstimator} with SRL 4 and PSG 3 times the tagging options).
+ * <p>
+ * For failure tests, the process dies after the first token of a sentence
+ * containing the word given by senna.fake.dieOn, hangs on a sentence
+ * containing senna.fake.hangOn, and takes senna.fake.slowDelay milliseconds
+ * for each sentence from the first one containing senna.fake.slowOn. If
+ * senna.fake.once names a file, only the process creating it does so.
+ */
+public class FakeSenna {
+
+	public static final String STARTUP_DELAY_PROPERTY = "senna.fake.startupDelay";
+	public static final String TOKEN_DELAY_PROPERTY = "senna.fake.tokenDelay";
+	public static final String DIE_ON_PROPERTY = "senna.fake.dieOn";
+	public static final String HANG_ON_PROPERTY = "senna.fake.hangOn";
+	public static final String SLOW_ON_PROPERTY = "senna.fake.slowOn";
+	public static final String SLOW_DELAY_PROPERTY = "senna.fake.slowDelay";
+	public static final String ONCE_PROPERTY = "senna.fake.once";
+
+	private static final String PUNCTUATION = ".,;:!?()\"'";
+
+	/**
+	 * Writes a script running this class with the current class path, which can
+	 * be passed to {@link SennaBuilder} like the SENNA executable.
+	 */
+	public static File createExecutable(File directory, long startupDelayMillis, long tokenDelayMicros)
+			throws IOException {
+		return createExecutable(directory, startupDelayMillis, tokenDelayMicros,
+				Collections.<String, String>emptyMap());
+	}
+
+	/**
+	 * Writes a script like {@link #createExecutable(File, long, long)} that also
+	 * passes the given system properties, e.g. {@link #DIE_ON_PROPERTY}.
+	 */
+	public static File createExecutable(File directory, long startupDelayMillis, long tokenDelayMicros,
+			Map<String, String> properties) throws IOException {
+		boolean windows = System.getProperty("os.name").toLowerCase().startsWith("windows");
+		String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getAbsolutePath();
+		StringBuilder command = new StringBuilder();
+		command.append("\"").append(java).append("\" -cp \"").append(System.getProperty("java.class.path"))
+				.append("\" -D").append(STARTUP_DELAY_PROPERTY).append("=").append(startupDelayMillis).append(" -D")
+				.append(TOKEN_DELAY_PROPERTY).append("=").append(tokenDelayMicros);
+		for (Entry<String, String> property : properties.entrySet()) {
+			command.append(" \"-D").append(property.getKey()).append("=").append(property.getValue()).append("\"");
+		}
+		command.append(" ").append(FakeSenna.class.getName());
+		File executable;
+		String script;
+		if (windows) {
+			executable = new File(directory, "senna.cmd");
+			script = "@" + command + " %*\r\n";
+		} else {
+			executable = new File(directory, "senna");
+			script = "#!/bin/sh\nexec " + command + " \"$@\"\n";
+		}
+		Files.write(executable.toPath(), script.getBytes(StandardCharsets.UTF_8));
+		if (!executable.setExecutable(true)) {
+			throw new IOException("can not make " + executable + " executable");
+		}
+		return executable;
+	}
+
+	public static void main(String[] args) throws IOException {
+		Set<String> flags = new HashSet<>();
+		for (String arg : args) {
+			// options with a file are passed as one argument, e.g. "-usrvbs verbs.txt"
+			flags.add(arg.split(" ", 2)[0]);
+		}
+		List<Option<? extends MultiToken>> options = new ArrayList<>();
+		if (flags.contains("-pos")) {
+			options.add(Option.POS);
+		}
+		if (flags.contains("-chk")) {
+			options.add(Option.CHK);
+		}
+		if (flags.contains("-ner")) {
+			options.add(Option.NER);
+		}
+		if (flags.contains("-srl")) {
+			options.add(Option.SRL);
+		}
+		if (flags.contains("-psg")) {
+			options.add(Option.PSG);
+		}
+		if (options.isEmpty()) {
+			options.addAll(SyntheticSennaOutput.ALL_OPTIONS);
+		}
+		boolean userTokens = flags.contains("-usrtokens");
+		boolean offsetTags = flags.contains("-offsettags");
+		boolean bracketTags = flags.contains("-brackettags");
+		boolean iobTags = flags.contains("-iobtags");
+		int weight = 0;
+		for (Option<? extends MultiToken> option : options) {
+			weight += option == Option.SRL ? 4 : option == Option.PSG ? 3 : 1;
+		}
+		long tokenDelayNanos = weight * TimeUnit.MICROSECONDS.toNanos(Long.getLong(TOKEN_DELAY_PROPERTY, 0));
+		String dieOn = System.getProperty(DIE_ON_PROPERTY);
+		String hangOn = System.getProperty(HANG_ON_PROPERTY);
+		String slowOn = System.getProperty(SLOW_ON_PROPERTY);
+		long slowDelayNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong(SLOW_DELAY_PROPERTY, 0));
+		boolean slow = false;
+
+		sleep(TimeUnit.MILLISECONDS.toNanos(Long.getLong(STARTUP_DELAY_PROPERTY, 0)));
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+		Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			List<String> words = new ArrayList<>();
+			List<int[]> offsets = new ArrayList<>();
+			tokenize(line, userTokens, words, offsets);
+			sleep(tokenDelayNanos * words.size());
+			String output = SyntheticSennaOutput.sentenceOutput(words, offsets, options, offsetTags, bracketTags,
+					iobTags, new Random(line.hashCode()));
+			if (words.contains(dieOn) && isFaulty()) {
+				// a line of the sentence gets out before the process dies
+				writer.write(output.substring(0, output.indexOf('\n') + 1));
+				writer.flush();
+				System.exit(1);
+			}
+			if (words.contains(hangOn) && isFaulty()) {
+				while (true) {
+					sleep(TimeUnit.HOURS.toNanos(1));
+				}
+			}
+			if (!slow && words.contains(slowOn) && isFaulty()) {
+				slow = true;
+			}
+			if (slow) {
+				sleep(slowDelayNanos);
+			}
+			writer.write(output);
+			writer.flush();
+		}
+	}
+
+	/**
+	 * @return true if this process is the one to fail, see
+	 *         {@link #ONCE_PROPERTY}
+	 */
+	private static boolean isFaulty() throws IOException {
+		String once = System.getProperty(ONCE_PROPERTY);
+		return once == null || new File(once).createNewFile();
+	}
+
+	/**
+	 * Splits at spaces, and like SENNA's tokenizer also splits off punctuation
+	 * unless the user's tokens are used.
+	 */
+	private static void tokenize(String line, boolean userTokens, List<String> words, List<int[]> offsets) {
+		int index = 0;
+		while (index < line.length()) {
+			while (index < line.length() && Character.isWhitespace(line.charAt(index))) {
+				index++;
+			}
+			int start = index;
+			if (!userTokens && index < line.length() && PUNCTUATION.indexOf(line.charAt(index)) >= 0) {
+				index++;
+			} else {
+				while (index < line.length() && !Character.isWhitespace(line.charAt(index))
+						&& (userTokens || PUNCTUATION.indexOf(line.charAt(index)) < 0)) {
+					index++;
+				}
+			}
+			if (index > start) {
+				words.add(line.substring(start, index));
+				offsets.add(new int[] { start, index });
+			}
+		}
+	}
+
+	private static void sleep(long nanos) {
+		long deadline = System.nanoTime() + nanos;
+		long remaining;
+		while ((remaining = deadline - System.nanoTime()) > 0) {
+			LockSupport.parkNanos(remaining);
+		}
+	}
+
+}
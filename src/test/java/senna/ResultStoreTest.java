@@ -0,0 +1,293 @@
+package senna;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import senna.mapping.Document;
+import senna.mapping.MultiToken;
+import senna.mapping.ResultParser;
+import senna.mapping.Sentence;
+import senna.mapping.SentenceResult;
+import senna.mapping.Token;
+
+public class ResultStoreTest {
+
+	private static final List<String> COMMAND = Arrays.asList("senna", "-pos");
+	private static final Collection<Option<? extends MultiToken>> OPTIONS = Collections
+			.<Option<? extends MultiToken>>singletonList(Option.POS);
+	private static final String[] TAGS = { "NN", "NNP", "VBZ" };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static Sentence sentence(int i) {
+		String text = "w" + i;
+		Sentence sentence = new Sentence(null, 0, text.length(), Arrays.asList(new Token(null, 0, text.length())));
+		new Document(text, Arrays.asList(sentence));
+		return sentence;
+	}
+
+	private static SentenceResult result(int i) {
+		Sentence sentence = sentence(i);
+		String text = "w" + i;
+		ResultParser.parse(sentence.getSennaDocument(), text + "\t 0 " + text.length() + "\t" + TAGS[i % 3] + "\n\n",
+				OPTIONS);
+		return SentenceResult.capture(sentence);
+	}
+
+	private static void write(ResultStore store, int from, int to) throws IOException {
+		List<Sentence> sentences = new ArrayList<>();
+		List<SentenceResult> results = new ArrayList<>();
+		for (int i = from; i < to; i++) {
+			sentences.add(sentence(i));
+			results.add(result(i));
+		}
+		store.write(COMMAND, sentences, results);
+	}
+
+	/**
+	 * @return the tag read for the sentence, null if it is not stored
+	 */
+	private static String readTag(ResultStore store, int i) throws IOException {
+		Sentence sentence = sentence(i);
+		SentenceResult result = store.read(COMMAND, sentence);
+		if (result == null) {
+			return null;
+		}
+		result.replay(sentence);
+		return sentence.getTokens().get(0).getFeatures().get(Option.POS);
+	}
+
+	private static void assertStored(ResultStore store, int from, int to) throws IOException {
+		for (int i = from; i < to; i++) {
+			assertEquals("sentence " + i, TAGS[i % 3], readTag(store, i));
+		}
+	}
+
+	@Test
+	public void concurrentWritersStoreEachSentenceOnce() throws Exception {
+		final int writers = 4;
+		final int perWriter = 1000;
+		final int total = (writers + 1) * perWriter / 2;
+		ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+		final AtomicBoolean writing = new AtomicBoolean(true);
+		try {
+			// readers of another store must never see a wrong result, even while the index grows
+			Future<Void> reader = executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					ResultStore store = new ResultStore(folder.getRoot());
+					try {
+						for (int i = 0; writing.get(); i = (i + 7) % total) {
+							String tag = readTag(store, i);
+							if (tag != null) {
+								assertEquals("sentence " + i, TAGS[i % 3], tag);
+							}
+						}
+					} finally {
+						store.close();
+					}
+					return null;
+				}
+			});
+			List<Future<Void>> futures = new ArrayList<>();
+			for (int w = 0; w < writers; w++) {
+				// the ranges of neighbouring writers overlap by half
+				final int from = w * perWriter / 2;
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						ResultStore store = new ResultStore(folder.getRoot());
+						try {
+							for (int i = from; i < from + perWriter; i += 50) {
+								write(store, i, i + 50);
+							}
+						} finally {
+							store.close();
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+			writing.set(false);
+			reader.get();
+		} finally {
+			executor.shutdownNow();
+		}
+
+		ResultStore store = new ResultStore(folder.getRoot());
+		try {
+			assertEquals(total, store.getEntryCount());
+			assertStored(store, 0, total);
+		} finally {
+			store.close();
+		}
+	}
+
+	@Test
+	public void tornRecordsAreSkipped() throws IOException {
+		ResultStore store = new ResultStore(folder.getRoot());
+		try {
+			write(store, 0, 10);
+		} finally {
+			store.close();
+		}
+		File dataFile = new File(folder.getRoot(), "data-1");
+		try (RandomAccessFile data = new RandomAccessFile(dataFile, "rw")) {
+			// the payload of the first record is damaged
+			long position = 8 + 8 + 4;
+			data.seek(position);
+			int value = data.read();
+			data.seek(position);
+			data.write(value ^ 0xff);
+			// a writer died while appending a record
+			data.seek(data.length());
+			data.writeInt(1000);
+			data.writeInt(0);
+			data.write(new byte[10]);
+		}
+
+		store = new ResultStore(folder.getRoot());
+		try {
+			assertNull(readTag(store, 0));
+			assertStored(store, 1, 10);
+			// appended after the torn record
+			write(store, 10, 11);
+			assertStored(store, 10, 11);
+			write(store, 0, 1);
+			assertStored(store, 0, 11);
+
+			// the damaged and the torn record are dropped
+			store.compact();
+			assertEquals(11, store.getEntryCount());
+			assertStored(store, 0, 11);
+		} finally {
+			store.close();
+		}
+	}
+
+	@Test
+	public void staleReadersReopenAfterCompaction() throws IOException {
+		ResultStore writer = new ResultStore(folder.getRoot());
+		ResultStore reader = new ResultStore(folder.getRoot());
+		try {
+			write(writer, 0, 100);
+			write(writer, 50, 150);
+			assertStored(reader, 0, 150);
+			long dataSize = reader.getDataSize();
+
+			writer.compact();
+			assertFalse(new File(folder.getRoot(), "data-1").exists());
+			assertTrue(new File(folder.getRoot(), "data-2").exists());
+
+			// the reader still has the old files open and must notice they are stale
+			assertStored(reader, 0, 150);
+			assertEquals(150, reader.getEntryCount());
+			assertTrue(reader.getDataSize() <= dataSize);
+
+			write(reader, 150, 160);
+			assertStored(writer, 0, 160);
+			assertEquals(160, writer.getEntryCount());
+			assertNotNull(writer.read(COMMAND, sentence(155)));
+		} finally {
+			writer.close();
+			reader.close();
+		}
+	}
+
+	@Test
+	public void readersShareTheStoreWhileItGrows() throws Exception {
+		final int total = 5000;
+		final ResultStore store = new ResultStore(folder.getRoot());
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		final AtomicBoolean writing = new AtomicBoolean(true);
+		final AtomicReference<Thread> interrupted = new AtomicReference<>();
+		try {
+			List<Future<Void>> readers = new ArrayList<>();
+			for (int r = 0; r < 4; r++) {
+				// the last reader is interrupted again and again, which must not break the others
+				final boolean interruptible = r == 3;
+				readers.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						if (interruptible) {
+							interrupted.set(Thread.currentThread());
+						}
+						for (int i = 0; writing.get(); i = (i + 13) % total) {
+							String tag = readTag(store, i);
+							Thread.interrupted();
+							if (tag != null) {
+								assertEquals("sentence " + i, TAGS[i % 3], tag);
+							}
+						}
+						return null;
+					}
+				}));
+			}
+			// the index grows twice and the files are compacted on the way
+			for (int i = 0; i < total; i += 50) {
+				write(store, i, i + 50);
+				if (i == total / 2) {
+					store.compact();
+				}
+				Thread thread = interrupted.get();
+				if (thread != null) {
+					thread.interrupt();
+				}
+			}
+			writing.set(false);
+			for (Future<Void> reader : readers) {
+				reader.get();
+			}
+			assertEquals(total, store.getEntryCount());
+			assertStored(store, 0, total);
+		} finally {
+			executor.shutdownNow();
+			store.close();
+		}
+	}
+
+	@Test
+	public void interruptedReadsKeepTheStoreOpen() throws IOException {
+		ResultStore store = new ResultStore(folder.getRoot());
+		try {
+			write(store, 0, 10);
+			Thread.currentThread().interrupt();
+			try {
+				// a miss rather than closing the data channel shared with other threads
+				assertNull(store.read(COMMAND, sentence(0)));
+			} finally {
+				Thread.interrupted();
+			}
+			assertStored(store, 0, 10);
+		} finally {
+			store.close();
+		}
+	}
+
+}
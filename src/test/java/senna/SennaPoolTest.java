@@ -0,0 +1,78 @@
+package senna;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SennaPoolTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static void borrowAndRelease(SennaPool pool, int workers) throws Exception {
+		List<SennaWorker> borrowed = new ArrayList<>();
+		for (int i = 0; i < workers; i++) {
+			borrowed.add(pool.borrow());
+		}
+		for (SennaWorker worker : borrowed) {
+			pool.release(worker);
+		}
+	}
+
+	@Test
+	public void resizeKeepsTheCapacityOfFixedCallers() throws Exception {
+		File executable = FakeSenna.createExecutable(folder.newFolder(), 0, 0);
+		SennaPool pool = new SennaPool(new ProcessBuilder(executable.getAbsolutePath()), System.err, 3);
+		try {
+			borrowAndRelease(pool, 3);
+			assertEquals(3, pool.size());
+			// an automatically sized caller asks for fewer processes
+			pool.resize(1);
+			assertEquals(3, pool.size());
+
+			pool.ensureCapacity(4);
+			borrowAndRelease(pool, 4);
+			assertEquals(4, pool.size());
+			pool.resize(2);
+			assertEquals(4, pool.size());
+			// and for more
+			pool.resize(5);
+			borrowAndRelease(pool, 5);
+			assertEquals(5, pool.size());
+			pool.resize(1);
+			assertEquals(4, pool.size());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void runningProcessesAreCountedPerCommand() throws Exception {
+		File executable = FakeSenna.createExecutable(folder.newFolder(), 0, 0);
+		ProcessBuilder posBuilder = new ProcessBuilder(executable.getAbsolutePath(), "-pos");
+		ProcessBuilder nerBuilder = new ProcessBuilder(executable.getAbsolutePath(), "-ner");
+		SennaPool posPool = new SennaPool(posBuilder, System.err, 3);
+		SennaPool nerPool = new SennaPool(nerBuilder, System.err, 1);
+		try {
+			borrowAndRelease(posPool, 3);
+			borrowAndRelease(nerPool, 1);
+			assertEquals(3, ProcessSizer.getRunningProcesses(posBuilder.command()));
+			assertEquals(1, ProcessSizer.getRunningProcesses(nerBuilder.command()));
+
+			posPool.shutdown();
+			assertEquals(0, ProcessSizer.getRunningProcesses(posBuilder.command()));
+			assertEquals(1, ProcessSizer.getRunningProcesses(nerBuilder.command()));
+		} finally {
+			posPool.shutdown();
+			nerPool.shutdown();
+		}
+		assertEquals(0, ProcessSizer.getRunningProcesses(nerBuilder.command()));
+	}
+
+}
@@ -0,0 +1,37 @@
+package senna;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class SennaPoolsTest {
+
+	@Test
+	public void limitFollowsCurrentHolders() {
+		Object small = new Object();
+		Object large = new Object();
+		SennaPools first = SennaPools.acquireShared();
+		SennaPools second = SennaPools.acquireShared();
+		try {
+			first.limitProcesses(small, 2);
+			second.limitProcesses(large, 5);
+			assertEquals(2, second.getMaxProcesses());
+
+			// the holder with the smallest limit leaves
+			first.release(small);
+			first = null;
+			assertEquals(5, second.getMaxProcesses());
+
+			second.limitProcesses(large, 3);
+			assertEquals(3, second.getMaxProcesses());
+			second.limitProcesses(large, 0);
+			assertEquals(Integer.MAX_VALUE, second.getMaxProcesses());
+		} finally {
+			if (first != null) {
+				first.release(small);
+			}
+			second.release(large);
+		}
+	}
+
+}
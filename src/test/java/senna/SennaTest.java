@@ -0,0 +1,592 @@
+package senna;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import senna.mapping.Document;
+import senna.mapping.MultiToken;
+import senna.mapping.Sentence;
+import senna.mapping.SentenceListener;
+import senna.mapping.SentenceStatus;
+import senna.mapping.Token;
+
+/**
+ * Runs the ways of executing a document against {@link FakeSenna} and compares
+ * their results with those of a single process.
+ */
+public class SennaTest {
+
+	private static final String[] WORDS = { "John", "eats", "apples", "Mary", "runs", "fast", "the", "dog",
+			"barks" };
+	private static final List<Option<? extends MultiToken>> MULTI_TOKEN_OPTIONS = Arrays
+			.<Option<? extends MultiToken>>asList(Option.CHK, Option.NER, Option.SRL, Option.PSG);
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File executable;
+
+	@Before
+	public void createExecutable() throws IOException {
+		executable = FakeSenna.createExecutable(folder.newFolder(), 0, 0);
+	}
+
+	/**
+	 * @param properties
+	 *            names and values of system properties of the fake SENNA
+	 */
+	private File createExecutable(String... properties) throws IOException {
+		Map<String, String> map = new HashMap<>();
+		for (int i = 0; i < properties.length; i += 2) {
+			map.put(properties[i], properties[i + 1]);
+		}
+		return FakeSenna.createExecutable(folder.newFolder(), 0, 0, map);
+	}
+
+	/**
+	 * Creates sentences of random words, starting with the given word at the
+	 * given indexes.
+	 */
+	private static Document createDocument(int size, boolean userTokens, long seed, String word, int... at) {
+		StringBuilder text = new StringBuilder();
+		List<Sentence> sentences = new ArrayList<>();
+		Random random = new Random(seed);
+		for (int i = 0; i < size; i++) {
+			int start = text.length();
+			List<Token> tokens = new ArrayList<>();
+			int length = 1 + random.nextInt(i % 7 == 0 ? 30 : 6);
+			for (int k = 0; k < length; k++) {
+				if (k > 0) {
+					text.append(' ');
+				}
+				String next = WORDS[random.nextInt(WORDS.length)];
+				if (k == 0 && contains(at, i)) {
+					next = word;
+				}
+				tokens.add(new Token(null, text.length(), text.length() + next.length()));
+				text.append(next);
+			}
+			text.append(". ");
+			sentences.add(userTokens ? new Sentence(null, start, text.length() - 1, tokens)
+					: new Sentence(null, start, text.length() - 1));
+		}
+		return new Document(text.toString(), sentences);
+	}
+
+	private static Document createDocument(int size, boolean userTokens, long seed) {
+		return createDocument(size, userTokens, seed, null);
+	}
+
+	private static boolean contains(int[] array, int value) {
+		for (int element : array) {
+			if (element == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static SennaBuilder builder(File executable, Integer processes, boolean userTokens) {
+		return new SennaBuilder(executable, processes).withUserTokens(userTokens).outputPos(true).outputChk(true)
+				.outputNer(true).outputSrl(true).outputPsg(true).parseChk(true).parseNer(true).parseSrl(true)
+				.parsePsg(true);
+	}
+
+	/**
+	 * @return the status, tags and multi-tokens of each sentence
+	 */
+	private static List<String> dump(Document document) {
+		List<String> dump = new ArrayList<>();
+		for (Sentence sentence : document.getSentences()) {
+			StringBuilder line = new StringBuilder().append(sentence.getStatus()).append(':');
+			for (Token token : sentence.getTokens()) {
+				line.append(' ').append(token.getDocumentStart()).append('-').append(token.getDocumentEnd())
+						.append(token.getFeatures().values()).append(token.getSrlValues());
+			}
+			for (Option<? extends MultiToken> option : MULTI_TOKEN_OPTIONS) {
+				for (MultiToken multiToken : sentence.getMultiTokens(option)) {
+					line.append(' ').append(multiToken.getType()).append('@').append(multiToken.getDocumentStart())
+							.append('-').append(multiToken.getDocumentEnd());
+				}
+			}
+			dump.add(line.toString());
+		}
+		return dump;
+	}
+
+	/**
+	 * @return the results of a single process for the document
+	 */
+	private List<String> reference(Document document, boolean userTokens) throws Exception {
+		Document copy = new Document(document.getDocumentText(), copySentences(document.getSentences(), userTokens));
+		builder(executable, 1, userTokens).build().execute(copy);
+		return dump(copy);
+	}
+
+	/**
+	 * @return the dump of each sentence of the document left untouched with
+	 *         the given status
+	 */
+	private static List<String> untouched(Document document, SentenceStatus status) {
+		for (Sentence sentence : document.getSentences()) {
+			sentence.setStatus(status);
+		}
+		return dump(document);
+	}
+
+	/**
+	 * Checks that the sentences have been completed like the reference or left
+	 * untouched and skipped.
+	 *
+	 * @return the indexes of the skipped sentences
+	 */
+	private static List<Integer> assertCompletedOrSkipped(List<String> expected, List<String> skipped,
+			Document document) {
+		List<Integer> indexes = new ArrayList<>();
+		List<String> dump = dump(document);
+		for (int i = 0; i < dump.size(); i++) {
+			if (document.getSentences().get(i).getStatus() == SentenceStatus.SKIPPED) {
+				assertEquals("sentence " + i, skipped.get(i), dump.get(i));
+				indexes.add(i);
+			} else {
+				assertEquals("sentence " + i, expected.get(i), dump.get(i));
+			}
+		}
+		return indexes;
+	}
+
+	private static void assertTimesOut(SennaBuilder builder, Document document) throws Exception {
+		try {
+			builder.build().execute(document);
+			fail("the execution should time out");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof TimeoutException);
+		}
+	}
+
+	private static List<Sentence> copySentences(List<Sentence> originals, boolean userTokens) {
+		List<Sentence> sentences = new ArrayList<>();
+		for (Sentence sentence : originals) {
+			if (userTokens) {
+				List<Token> tokens = new ArrayList<>();
+				for (Token token : sentence.getTokens()) {
+					tokens.add(new Token(null, token.getDocumentStart(), token.getDocumentEnd()));
+				}
+				sentences.add(new Sentence(null, sentence.getDocumentStart(), sentence.getDocumentEnd(), tokens));
+			} else {
+				sentences.add(new Sentence(null, sentence.getDocumentStart(), sentence.getDocumentEnd()));
+			}
+		}
+		return sentences;
+	}
+
+	@Test
+	public void pooledRunsMatchOneProcess() throws Exception {
+		SennaPools pools = new SennaPools();
+		try {
+			for (boolean userTokens : new boolean[] { false, true }) {
+				List<String> expected = reference(createDocument(200, userTokens, 1), userTokens);
+				// the second round reuses the warm workers
+				for (int round = 0; round < 2; round++) {
+					for (int processes : new int[] { 1, 3 }) {
+						Document document = createDocument(200, userTokens, 1);
+						builder(executable, processes, userTokens).withPools(pools).build().execute(document);
+						assertEquals(expected, dump(document));
+					}
+				}
+			}
+			// workers are reused, at most 3 for each of the two command lines
+			assertTrue(pools.size() <= 3 * 2);
+		} finally {
+			pools.shutdown();
+		}
+	}
+
+	@Test
+	public void partitionedRunsMatchOneProcess() throws Exception {
+		for (boolean userTokens : new boolean[] { false, true }) {
+			List<String> expected = reference(createDocument(200, userTokens, 2), userTokens);
+			for (int processes : new int[] { 2, 3, 5 }) {
+				Document document = createDocument(200, userTokens, 2);
+				builder(executable, processes, userTokens).build().execute(document);
+				assertEquals(expected, dump(document));
+			}
+		}
+	}
+
+	@Test
+	public void batchedDocumentsMatchSingleRuns() throws Exception {
+		SennaPools pools = new SennaPools();
+		try {
+			List<List<String>> expected = new ArrayList<>();
+			for (int seed = 0; seed < 3; seed++) {
+				expected.add(reference(createDocument(40 + seed * 30, false, seed), false));
+			}
+			for (boolean pooled : new boolean[] { false, true }) {
+				for (int processes : new int[] { 1, 3 }) {
+					List<Document> documents = new ArrayList<>();
+					for (int seed = 0; seed < 3; seed++) {
+						documents.add(createDocument(40 + seed * 30, false, seed));
+					}
+					SennaBuilder builder = builder(executable, processes, false);
+					if (pooled) {
+						builder.withPools(pools);
+					}
+					builder.build().execute(documents);
+					for (int i = 0; i < documents.size(); i++) {
+						assertEquals(expected.get(i), dump(documents.get(i)));
+					}
+				}
+			}
+		} finally {
+			pools.shutdown();
+		}
+	}
+
+	@Test
+	public void cachedResultsMatchOneProcess() throws Exception {
+		List<String> expected = reference(createDocument(100, true, 3), true);
+		ResultCache cache = new ResultCache(16 * 1024 * 1024);
+		for (int run = 0; run < 2; run++) {
+			Document document = createDocument(100, true, 3);
+			builder(executable, 2, true).withResultCache(cache).build().execute(document);
+			assertEquals(expected, dump(document));
+		}
+		// the second run is answered from the cache
+		assertEquals(100, cache.getHitCount());
+	}
+
+	@Test
+	public void duplicateSentencesMatchSeparateRuns() throws Exception {
+		// the same sentences three times over
+		Document base = createDocument(30, false, 4);
+		String baseText = base.getDocumentText();
+		StringBuilder text = new StringBuilder();
+		List<Sentence> sentences = new ArrayList<>();
+		for (int copy = 0; copy < 3; copy++) {
+			int offset = text.length();
+			for (Sentence sentence : base.getSentences()) {
+				sentences.add(new Sentence(null, offset + sentence.getDocumentStart(),
+						offset + sentence.getDocumentEnd()));
+			}
+			text.append(baseText);
+		}
+
+		// each sentence on its own, so nothing is shared
+		List<String> expected = new ArrayList<>();
+		SennaPools pools = new SennaPools();
+		try {
+			Senna senna = builder(executable, 1, false).withPools(pools).build();
+			for (Sentence sentence : sentences) {
+				Document single = new Document(text.toString(), Arrays.asList(
+						new Sentence(null, sentence.getDocumentStart(), sentence.getDocumentEnd())));
+				senna.execute(single);
+				expected.addAll(dump(single));
+			}
+		} finally {
+			pools.shutdown();
+		}
+
+		for (int processes : new int[] { 1, 3 }) {
+			Document document = new Document(text.toString(), copySentences(sentences, false));
+			builder(executable, processes, false).build().execute(document);
+			assertEquals(expected, dump(document));
+		}
+	}
+
+	@Test
+	public void taskGroupsMatchOneProcess() throws Exception {
+		SennaPools pools = new SennaPools();
+		try {
+			for (boolean userTokens : new boolean[] { false, true }) {
+				List<String> expected = reference(createDocument(150, userTokens, 5), userTokens);
+				for (boolean pooled : new boolean[] { false, true }) {
+					for (int processes : new int[] { 1, 2 }) {
+						Document document = createDocument(150, userTokens, 5);
+						SennaBuilder builder = builder(executable, processes, userTokens).withTaskGroups(true);
+						if (pooled) {
+							builder.withPools(pools);
+						}
+						builder.build().execute(document);
+						assertEquals(expected, dump(document));
+					}
+				}
+			}
+		} finally {
+			pools.shutdown();
+		}
+	}
+
+	@Test
+	public void runsResumeAfterAProcessDies() throws Exception {
+		SennaPools pools = new SennaPools();
+		try {
+			for (boolean userTokens : new boolean[] { false, true }) {
+				List<String> expected = reference(createDocument(120, userTokens, 6, "Boom", 57), userTokens);
+				for (boolean pooled : new boolean[] { false, true }) {
+					for (int processes : new int[] { 1, 3 }) {
+						// the first process reaching the sentence dies in the middle of it
+						File died = new File(folder.newFolder(), "died");
+						File dying = createExecutable(FakeSenna.DIE_ON_PROPERTY, "Boom", FakeSenna.ONCE_PROPERTY,
+								died.getPath());
+						Document document = createDocument(120, userTokens, 6, "Boom", 57);
+						SennaBuilder builder = builder(dying, processes, userTokens);
+						if (pooled) {
+							builder.withPools(pools);
+						}
+						builder.build().execute(document);
+						assertTrue(died.exists());
+						assertEquals(expected, dump(document));
+					}
+				}
+			}
+		} finally {
+			pools.shutdown();
+		}
+	}
+
+	@Test
+	public void sentencesKillingEveryProcessFail() throws Exception {
+		File dying = createExecutable(FakeSenna.DIE_ON_PROPERTY, "Boom");
+		for (boolean userTokens : new boolean[] { false, true }) {
+			List<String> expected = reference(createDocument(60, userTokens, 7, "Boom", 20, 41), userTokens);
+			// without the tags SENNA wrote before dying
+			Document failed = createDocument(60, userTokens, 7, "Boom", 20, 41);
+			failed.getSentences().get(20).setStatus(SentenceStatus.FAILED);
+			failed.getSentences().get(41).setStatus(SentenceStatus.FAILED);
+			expected.set(20, dump(failed).get(20));
+			expected.set(41, dump(failed).get(41));
+			for (int processes : new int[] { 1, 3 }) {
+				Document document = createDocument(60, userTokens, 7, "Boom", 20, 41);
+				builder(dying, processes, userTokens).build().execute(document);
+				assertEquals(expected, dump(document));
+			}
+		}
+	}
+
+	@Test
+	public void sentenceTimeoutsFollowThePolicy() throws Exception {
+		File hanging = createExecutable(FakeSenna.HANG_ON_PROPERTY, "Stuck");
+		List<String> expected = reference(createDocument(60, false, 8, "Stuck", 30), false);
+		List<String> skipped = untouched(createDocument(60, false, 8, "Stuck", 30), SentenceStatus.SKIPPED);
+		for (int processes : new int[] { 1, 3 }) {
+			assertTimesOut(builder(hanging, processes, false).withSentenceTimeout(2, TimeUnit.SECONDS)
+					.withTimeoutPolicy(TimeoutPolicy.FAIL), createDocument(60, false, 8, "Stuck", 30));
+
+			// only the hanging sentence is missing
+			Document document = createDocument(60, false, 8, "Stuck", 30);
+			builder(hanging, processes, false).withSentenceTimeout(2, TimeUnit.SECONDS)
+					.withTimeoutPolicy(TimeoutPolicy.SKIP).build().execute(document);
+			assertEquals(Arrays.asList(30), assertCompletedOrSkipped(expected, skipped, document));
+
+			document = createDocument(60, false, 8, "Stuck", 30);
+			builder(hanging, processes, false).withSentenceTimeout(2, TimeUnit.SECONDS)
+					.withTimeoutPolicy(TimeoutPolicy.PARTIAL).build().execute(document);
+			List<Integer> indexes = assertCompletedOrSkipped(expected, skipped, document);
+			assertTrue(indexes.contains(30));
+			if (processes == 1) {
+				// later sentences are only completed as duplicates of earlier ones
+				assertEquals(Integer.valueOf(30), indexes.get(0));
+				assertTrue(indexes.size() > 20);
+			}
+		}
+	}
+
+	@Test
+	public void documentTimeoutsFollowThePolicy() throws Exception {
+		// from the first slow sentence on, each sentence of the process takes half
+		// a second; they are spread out so re-running a partition does not help
+		File slow = createExecutable(FakeSenna.SLOW_ON_PROPERTY, "Slow", FakeSenna.SLOW_DELAY_PROPERTY, "500");
+		int[] at = { 5, 9, 13, 17, 21, 25, 29, 33, 37 };
+		List<String> expected = reference(createDocument(40, false, 9, "Slow", at), false);
+		List<String> skipped = untouched(createDocument(40, false, 9, "Slow", at), SentenceStatus.SKIPPED);
+		for (int processes : new int[] { 1, 3 }) {
+			assertTimesOut(builder(slow, processes, false).withDocumentTimeout(3, TimeUnit.SECONDS)
+					.withTimeoutPolicy(TimeoutPolicy.FAIL), createDocument(40, false, 9, "Slow", at));
+
+			for (TimeoutPolicy policy : new TimeoutPolicy[] { TimeoutPolicy.SKIP, TimeoutPolicy.PARTIAL }) {
+				Document document = createDocument(40, false, 9, "Slow", at);
+				long start = System.nanoTime();
+				builder(slow, processes, false).withDocumentTimeout(3, TimeUnit.SECONDS).withTimeoutPolicy(policy)
+						.build().execute(document);
+				assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+				List<Integer> indexes = assertCompletedOrSkipped(expected, skipped, document);
+				assertTrue(!indexes.isEmpty() && indexes.get(0) >= 5);
+			}
+		}
+	}
+
+	@Test
+	public void stragglersAreOvertakenBySpeculation() throws Exception {
+		for (boolean userTokens : new boolean[] { false, true }) {
+			List<String> expected = reference(createDocument(60, userTokens, 10, "Lag", 0), userTokens);
+			// the first process takes a second for each sentence, which would take
+			// about 20 seconds for its part
+			File lagged = new File(folder.newFolder(), "lagged");
+			File lagging = createExecutable(FakeSenna.SLOW_ON_PROPERTY, "Lag", FakeSenna.SLOW_DELAY_PROPERTY, "1000",
+					FakeSenna.ONCE_PROPERTY, lagged.getPath());
+			Document document = createDocument(60, userTokens, 10, "Lag", 0);
+			long start = System.nanoTime();
+			builder(lagging, 3, userTokens).build().execute(document);
+			assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+			assertTrue(lagged.exists());
+			assertEquals(expected, dump(document));
+		}
+	}
+
+	@Test
+	public void sharedPoolsStayWithinTheirCap() throws Exception {
+		final SennaPools pools = new SennaPools();
+		pools.limitProcesses(2);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			final AtomicInteger largest = new AtomicInteger();
+			List<Future<List<String>>> futures = new ArrayList<>();
+			// the two kinds of tokens are two command lines, so two pools share the cap
+			for (final boolean userTokens : new boolean[] { false, true }) {
+				futures.add(executor.submit(new Callable<List<String>>() {
+					@Override
+					public List<String> call() throws Exception {
+						Document document = createDocument(150, userTokens, 11);
+						builder(executable, 4, userTokens).withPools(pools).build().execute(document,
+								new SentenceListener() {
+									@Override
+									public void sentenceCompleted(Sentence sentence) {
+										int size = pools.size();
+										int current;
+										while (size > (current = largest.get()) && !largest.compareAndSet(current, size)) {
+										}
+									}
+								});
+						return dump(document);
+					}
+				}));
+			}
+			assertEquals(reference(createDocument(150, false, 11), false), futures.get(0).get());
+			assertEquals(reference(createDocument(150, true, 11), true), futures.get(1).get());
+			assertTrue(largest.get() > 0 && largest.get() <= 2);
+			assertTrue(pools.size() <= 2);
+		} finally {
+			executor.shutdownNow();
+			pools.shutdown();
+		}
+	}
+
+	@Test
+	public void autoSizedRunsKeepTheWorkersOfFixedRuns() throws Exception {
+		SennaPools pools = new SennaPools();
+		try {
+			List<String> expected = reference(createDocument(150, false, 12), false);
+			Document document = createDocument(150, false, 12);
+			builder(executable, 3, false).withPools(pools).build().execute(document);
+			assertEquals(expected, dump(document));
+			assertEquals(3, pools.size());
+
+			document = createDocument(150, false, 12);
+			builder(executable, SennaBuilder.AUTO_PROCESSES, false).withPools(pools).build().execute(document);
+			assertEquals(expected, dump(document));
+			assertTrue(pools.size() >= 3);
+		} finally {
+			pools.shutdown();
+		}
+	}
+
+	@Test
+	public void asyncRunsGoOnAfterAListenerError() throws Exception {
+		Senna senna = builder(executable, 2, false).build();
+		final Error error = new Error("listener failed");
+		Future<Document> failing = senna.executeAsync(createDocument(50, false, 13), new SentenceListener() {
+			@Override
+			public void sentenceCompleted(Sentence sentence) {
+				throw error;
+			}
+		});
+		try {
+			failing.get(30, TimeUnit.SECONDS);
+			fail("the listener should fail the document");
+		} catch (ExecutionException e) {
+			assertSame(error, e.getCause());
+		}
+
+		// the queue is drained again for later documents
+		List<String> expected = reference(createDocument(50, false, 13), false);
+		for (int i = 0; i < 2; i++) {
+			Document document = senna.executeAsync(createDocument(50, false, 13)).get(30, TimeUnit.SECONDS);
+			assertEquals(expected, dump(document));
+		}
+	}
+
+	@Test
+	public void asyncRunsNeedNoThreadOfTheExecutor() throws Exception {
+		List<String> expected = reference(createDocument(80, false, 14), false);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			// two parts queued on one thread, which a waiting batch must not take
+			Senna senna = builder(executable, 2, false).withExecutor(executor).build();
+			Document document = senna.executeAsync(createDocument(80, false, 14)).get(30, TimeUnit.SECONDS);
+			assertEquals(expected, dump(document));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void taskGroupsNeedNoThreadOfTheExecutor() throws Exception {
+		List<String> expected = reference(createDocument(80, false, 15), false);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		ExecutorService caller = Executors.newSingleThreadExecutor();
+		try {
+			for (boolean pooled : new boolean[] { false, true }) {
+				SennaPools pools = new SennaPools();
+				try {
+					// the groups must leave the two threads to the processes
+					SennaBuilder builder = builder(executable, 2, false).withTaskGroups(true).withExecutor(executor);
+					if (pooled) {
+						builder.withPools(pools);
+					}
+					final Senna senna = builder.build();
+					final Document document = createDocument(80, false, 15);
+					Future<Void> future = caller.submit(new Callable<Void>() {
+						@Override
+						public Void call() throws Exception {
+							senna.execute(document);
+							return null;
+						}
+					});
+					future.get(30, TimeUnit.SECONDS);
+					assertEquals(expected, dump(document));
+				} finally {
+					pools.shutdown();
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+			caller.shutdownNow();
+		}
+	}
+
+}
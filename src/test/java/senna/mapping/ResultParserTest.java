@@ -0,0 +1,377 @@
+package senna.mapping;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Test;
+
+import senna.Option;
+
+public class ResultParserTest {
+
+	private static final String TEXT = "John eats apples. Mary sees him. Hi";
+
+	private static final String OUTPUT = "" //
+			+ "John\t 0 4\tNNP\tS-NP\tS-PER\t-\tS-A0\tO\t(S1(S(NP*)\n" //
+			+ "eats\t 5 9\tVBZ\tS-VP\tO\teats\tS-V\tO\t(VP*\n" //
+			+ "apples\t 10 16\tNNS\tS-NP\tO\t-\tS-A1\tO\t(NP*))\n" //
+			+ ".\t 16 17\t.\tO\tO\t-\tO\tO\t*))\n" //
+			+ "\n" //
+			+ "Mary\t 0 4\tNNP\tS-NP\tS-PER\t-\tS-A0\tO\t(S1(S(NP*)\n" //
+			+ "sees\t 5 9\tVBZ\tS-VP\tO\tsees\tS-V\tO\t(VP*\n" //
+			+ "him\t 10 13\tPRP\tS-NP\tO\t-\tS-A1\tO\t(NP*))\n" //
+			+ ".\t 13 14\t.\tO\tO\t-\tO\tO\t*))\n" //
+			+ "\n" //
+			+ "Hi\t 0 2\tUH\tS-INTJ\tO\t-\tO\tO\t(S1(INTJ*))\n" //
+			+ "\n";
+
+	private static final Collection<Option<? extends MultiToken>> OPTIONS = Arrays
+			.<Option<? extends MultiToken>>asList(Option.POS, Option.CHK, Option.NER, Option.SRL, Option.PSG);
+
+	private static Document createDocument(boolean userTokens) {
+		return createDocument(userTokens, null);
+	}
+
+	private static Document createDocument(boolean userTokens, TagDictionary tagDictionary) {
+		List<Sentence> sentences = new ArrayList<>();
+		if (userTokens) {
+			sentences.add(new Sentence(null, 0, 17, Arrays.asList(new Token(null, 0, 4), new Token(null, 5, 9),
+					new Token(null, 10, 16), new Token(null, 16, 17))));
+			sentences.add(new Sentence(null, 18, 32, Arrays.asList(new Token(null, 18, 22), new Token(null, 23, 27),
+					new Token(null, 28, 31), new Token(null, 31, 32))));
+			sentences.add(new Sentence(null, 33, 35, Arrays.asList(new Token(null, 33, 35))));
+		} else {
+			sentences.add(new Sentence(null, 0, 17));
+			sentences.add(new Sentence(null, 18, 32));
+			sentences.add(new Sentence(null, 33, 35));
+		}
+		return new Document(TEXT, sentences, tagDictionary);
+	}
+
+	private static void assertSameResult(Document expected, Document actual) {
+		assertEquals(expected.getSentences().size(), actual.getSentences().size());
+		for (int sentenceNumber = 0; sentenceNumber < expected.getSentences().size(); sentenceNumber++) {
+			List<Token> expectedTokens = expected.getSentences().get(sentenceNumber).getTokens();
+			List<Token> actualTokens = actual.getSentences().get(sentenceNumber).getTokens();
+			assertEquals(expectedTokens.size(), actualTokens.size());
+			for (int tokenNumber = 0; tokenNumber < expectedTokens.size(); tokenNumber++) {
+				Token expectedToken = expectedTokens.get(tokenNumber);
+				Token actualToken = actualTokens.get(tokenNumber);
+				assertEquals(expectedToken.getDocumentStart(), actualToken.getDocumentStart());
+				assertEquals(expectedToken.getDocumentEnd(), actualToken.getDocumentEnd());
+				assertEquals(expectedToken.getSennaStart(), actualToken.getSennaStart());
+				assertEquals(expectedToken.getSennaEnd(), actualToken.getSennaEnd());
+				assertEquals(new ArrayList<>(expectedToken.getFeatures().entrySet()),
+						new ArrayList<>(actualToken.getFeatures().entrySet()));
+				assertEquals(expectedToken.getSrlValues(), actualToken.getSrlValues());
+			}
+		}
+	}
+
+	private static void assertStreamMatchesString(String output, Collection<Option<? extends MultiToken>> options,
+			boolean userTokens, int bufferSize) throws IOException {
+		Document expected = createDocument(userTokens);
+		ResultParser.parse(expected, output, options);
+
+		Document actual = createDocument(userTokens);
+		ColumnReader reader = new ColumnReader(new ByteArrayInputStream(output.getBytes(StandardCharsets.UTF_8)),
+				bufferSize);
+		ResultParser.parse(actual.getSentences(), reader, options, null);
+
+		assertSameResult(expected, actual);
+	}
+
+	@Test
+	public void streamParserMatchesStringParser() throws IOException {
+		assertStreamMatchesString(OUTPUT, OPTIONS, false, 64 * 1024);
+		assertStreamMatchesString(OUTPUT, OPTIONS, true, 64 * 1024);
+	}
+
+	@Test
+	public void streamParserMatchesStringParserWithSmallBuffer() throws IOException {
+		assertStreamMatchesString(OUTPUT, OPTIONS, false, 3);
+		assertStreamMatchesString(OUTPUT.replace("\n", "\r\n"), OPTIONS, true, 5);
+	}
+
+	@Test
+	public void streamParserMatchesStringParserWithoutPsg() throws IOException {
+		StringBuilder output = new StringBuilder();
+		for (String line : OUTPUT.split("\n", -1)) {
+			output.append(line.isEmpty() ? line : line.substring(0, line.lastIndexOf('\t'))).append('\n');
+		}
+		assertStreamMatchesString(output.toString().trim() + "\n\n",
+				Arrays.<Option<? extends MultiToken>>asList(Option.POS, Option.CHK, Option.NER, Option.SRL), false,
+				64 * 1024);
+	}
+
+	@Test
+	public void compactDocumentMatchesRegularDocument() throws IOException {
+		for (boolean userTokens : new boolean[] { false, true }) {
+			Document expected = createDocument(userTokens);
+			ResultParser.parse(expected, OUTPUT, OPTIONS);
+
+			TagDictionary tagDictionary = new TagDictionary();
+			Document actual = createDocument(userTokens, tagDictionary);
+			SubDocument subDocument = new SubDocument(actual, actual.getSentences().get(1),
+					actual.getSentences().get(2));
+			ResultParser.parse(actual.getSentences().subList(0, 1),
+					new ColumnReader(new ByteArrayInputStream(OUTPUT.getBytes(StandardCharsets.UTF_8))), OPTIONS,
+					null);
+			ResultParser.parse(subDocument, OUTPUT.substring(OUTPUT.indexOf("\n\n") + 2), OPTIONS);
+			subDocument.mergeToOriginal();
+
+			assertSameResult(expected, actual);
+			assertSame(actual.getSentences().get(0).getTokens().get(0).getFeature(Option.NER),
+					actual.getSentences().get(1).getTokens().get(0).getFeature(Option.NER));
+			List<Token> tokens = actual.getSentences().get(0).getTokens();
+			assertEquals(tokens.get(1), tokens.get(1));
+		}
+	}
+
+	@Test
+	public void slicesParseIntoTheDocument() throws IOException {
+		for (boolean userTokens : new boolean[] { false, true }) {
+			Document expected = createDocument(userTokens);
+			ResultParser.parse(expected, OUTPUT, OPTIONS);
+
+			for (TagDictionary tagDictionary : Arrays.asList(null, new TagDictionary())) {
+				Document actual = createDocument(userTokens, tagDictionary);
+				DocumentSlice slice = new DocumentSlice(actual);
+				DocumentSlice first = slice.slice(0, 1);
+				DocumentSlice rest = slice.slice(1, 3);
+				assertEquals(new SubDocument(actual, actual.getSentences().subList(1, 3)).getSennaText(),
+						rest.getSennaText().toString());
+				assertEquals(actual.getSentences().get(0).getSennaText() + "\n"
+						+ actual.getSentences().get(2).getSennaText(),
+						new DocumentSlice(actual, Arrays.asList(actual.getSentences().get(0),
+								actual.getSentences().get(2))).getSennaText().toString());
+
+				int split = OUTPUT.indexOf("\n\n") + 2;
+				ResultParser.parse(rest.getSentences(),
+						new ByteArrayInputStream(OUTPUT.substring(split).getBytes(StandardCharsets.UTF_8)), OPTIONS,
+						null);
+				ResultParser.parse(first.getSentences(),
+						new ByteArrayInputStream(OUTPUT.substring(0, split).getBytes(StandardCharsets.UTF_8)),
+						OPTIONS, null);
+
+				assertSameResult(expected, actual);
+			}
+		}
+	}
+
+	@Test
+	public void interruptedSentencesAreReplaced() throws IOException {
+		for (boolean userTokens : new boolean[] { false, true }) {
+			Document expected = createDocument(userTokens);
+			ResultParser.parse(expected, OUTPUT, OPTIONS);
+
+			for (TagDictionary tagDictionary : Arrays.asList(null, new TagDictionary())) {
+				Document actual = createDocument(userTokens, tagDictionary);
+				// output of a process destroyed in the middle of the second sentence
+				String interrupted = OUTPUT.substring(0, OUTPUT.indexOf("him"));
+				ResultParser.parse(actual.getSentences(),
+						new ByteArrayInputStream(interrupted.getBytes(StandardCharsets.UTF_8)), OPTIONS, null);
+				for (int i = 1; i < 3; i++) {
+					SentenceResult.capture(expected.getSentences().get(i)).replace(actual.getSentences().get(i));
+				}
+
+				assertSameResult(expected, actual);
+			}
+		}
+	}
+
+	@Test
+	public void earlyEndOfOutputLeavesSentencesPending() throws IOException {
+		Document document = createDocument(false);
+		String interrupted = OUTPUT.substring(0, OUTPUT.indexOf("him"));
+		try {
+			ResultParser.parse(document.getSentences(),
+					new ColumnReader(new ByteArrayInputStream(interrupted.getBytes(StandardCharsets.UTF_8))),
+					OPTIONS, null);
+			fail("the output ends in the second sentence");
+		} catch (EOFException e) {
+			// expected
+		}
+		assertEquals(SentenceStatus.COMPLETED, document.getSentences().get(0).getStatus());
+		assertEquals(SentenceStatus.PENDING, document.getSentences().get(1).getStatus());
+		assertEquals(2, document.getSentences().get(1).getTokens().size());
+
+		document.getSentences().get(1).clearSennaTokens();
+		assertTrue(document.getSentences().get(1).getTokens().isEmpty());
+	}
+
+	@Test
+	public void userTokensLoseTheTagsOfADeadProcess() throws IOException {
+		for (TagDictionary tagDictionary : Arrays.asList(null, new TagDictionary())) {
+			Document expected = createDocument(true);
+			ResultParser.parse(expected, OUTPUT, OPTIONS);
+
+			Document document = createDocument(true, tagDictionary);
+			// the process died after the first two tokens of the second sentence
+			String interrupted = OUTPUT.substring(0, OUTPUT.indexOf("him"));
+			try {
+				ResultParser.parse(document.getSentences(),
+						new ColumnReader(new ByteArrayInputStream(interrupted.getBytes(StandardCharsets.UTF_8))),
+						OPTIONS, null);
+				fail("the output ends in the second sentence");
+			} catch (EOFException e) {
+				// expected
+			}
+			Sentence sentence = document.getSentences().get(1);
+			sentence.clearSennaTokens();
+			assertEquals(4, sentence.getTokens().size());
+			for (Token token : sentence.getTokens()) {
+				assertTrue(token.getFeatures().isEmpty());
+				assertTrue(token.getSrlValues() == null || token.getSrlValues().isEmpty());
+			}
+
+			// a new process parses the sentence again
+			String remaining = OUTPUT.substring(OUTPUT.indexOf("Mary"));
+			ResultParser.parse(document.getSentences().subList(1, 3),
+					new ColumnReader(new ByteArrayInputStream(remaining.getBytes(StandardCharsets.UTF_8))), OPTIONS,
+					null);
+			assertSameResult(expected, document);
+		}
+	}
+
+	@Test
+	public void capturedResultsReplayIntoOtherSentences() {
+		for (boolean userTokens : new boolean[] { false, true }) {
+			Document expected = createDocument(userTokens);
+			ResultParser.parse(expected, OUTPUT, OPTIONS);
+
+			for (TagDictionary tagDictionary : Arrays.asList(null, new TagDictionary())) {
+				Document actual = createDocument(userTokens, tagDictionary);
+				// replay the sentences out of order into a sub document of the last two
+				SubDocument subDocument = new SubDocument(actual,
+						actual.getSentences().subList(1, actual.getSentences().size()));
+				for (int sentenceNumber = actual.getSentences().size() - 1; sentenceNumber >= 0; sentenceNumber--) {
+					SentenceResult result = SentenceResult.capture(expected.getSentences().get(sentenceNumber));
+					if (sentenceNumber > 0) {
+						result.replay(subDocument.getSentences().get(sentenceNumber - 1));
+					} else {
+						result.replay(actual.getSentences().get(0));
+					}
+				}
+				subDocument.mergeToOriginal();
+
+				assertSameResult(expected, actual);
+			}
+		}
+	}
+
+	@Test
+	public void writtenResultsReadBackCanonical() throws IOException {
+		Document expected = createDocument(false);
+		ResultParser.parse(expected, OUTPUT, OPTIONS);
+		Document actual = createDocument(false);
+		for (int sentenceNumber = 0; sentenceNumber < expected.getSentences().size(); sentenceNumber++) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			SentenceResult.capture(expected.getSentences().get(sentenceNumber))
+					.write(new DataOutputStream(bytes));
+			SentenceResult result = SentenceResult.read(
+					new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), TagDictionary.getShared());
+			result.replay(actual.getSentences().get(sentenceNumber));
+		}
+
+		assertSameResult(expected, actual);
+		assertSame(expected.getSentences().get(0).getTokens().get(0).getFeature(Option.POS),
+				actual.getSentences().get(0).getTokens().get(0).getFeature(Option.POS));
+	}
+
+	@Test
+	public void tagsAndTypesAreCanonical() {
+		Document first = createDocument(false);
+		ResultParser.parse(first, OUTPUT, OPTIONS);
+		ResultParser.parseAnnotations(first, Option.CHK, false);
+		Document second = createDocument(true);
+		ResultParser.parse(second, OUTPUT, OPTIONS);
+		ResultParser.parseAnnotations(second, Option.CHK, false);
+
+		Token firstToken = first.getSentences().get(0).getTokens().get(0);
+		Token secondToken = second.getSentences().get(1).getTokens().get(0);
+		assertSame(firstToken.getFeature(Option.POS), secondToken.getFeature(Option.POS));
+		assertSame(firstToken.getSrlValue(0), secondToken.getSrlValue(0));
+		assertSame(first.getSentences().get(0).getMultiTokens(Option.CHK).get(0).getType(),
+				second.getSentences().get(1).getMultiTokens(Option.CHK).get(0).getType());
+
+		Tag tag = TagDictionary.getShared().get(Option.CHK).get("E-NP");
+		assertEquals(TagPrefix.END, tag.getPrefix());
+		assertSame(TagDictionary.getShared().canonicalType("NP"), tag.getType());
+		assertEquals(Arrays.asList("S1", "S", "NP", Tag.CLOSING_BRACKET),
+				TagDictionary.getShared().get(Option.PSG).get("(S1(S(NP*)").getBrackets());
+	}
+
+	@Test
+	public void missingSrlValuesOfCompactDocumentAreOutOfBounds() {
+		// the user's tokens have no values before they are parsed
+		Document document = createDocument(true, new TagDictionary());
+		for (Token token : document.getSentences().get(0).getTokens()) {
+			assertOutOfBounds(token, 0);
+		}
+
+		ResultParser.parse(document, OUTPUT, OPTIONS);
+		Token token = document.getSentences().get(0).getTokens().get(0);
+		assertEquals("S-A0", token.getSrlValue(0));
+		assertOutOfBounds(token, 2);
+	}
+
+	private static void assertOutOfBounds(Token token, int verbNumber) {
+		try {
+			token.getSrlValue(verbNumber);
+			fail("verb " + verbNumber + " should not exist");
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void columnReaderParsesOffsetsAndInternsTags() throws IOException {
+		ColumnReader reader = new ColumnReader(
+				new ByteArrayInputStream("a 1 23 NN\nb\t-4  567\tNN\n\nc".getBytes(StandardCharsets.UTF_8)));
+		assertTrue(reader.readLine());
+		assertEquals(4, reader.getColumnCount());
+		assertEquals(1, reader.getIntColumn(1));
+		assertEquals(23, reader.getIntColumn(2));
+		String tag = reader.getColumn(3);
+		assertTrue(reader.readLine());
+		assertEquals(-4, reader.getIntColumn(1));
+		assertEquals(567, reader.getIntColumn(2));
+		assertSame(tag, reader.getColumn(3));
+		assertTrue(reader.readLine());
+		assertTrue(reader.isEmptyLine());
+		assertTrue(reader.readLine());
+		assertEquals("c", reader.getColumn(0));
+		assertFalse(reader.readLine());
+	}
+
+	@Test
+	public void columnReaderDecodesWithTheInputCharset() throws IOException {
+		// a verb column as SENNA echoes it back in the charset of its input
+		String line = "m\u00e4ht\t 0 4\tVBZ\tm\u00e4ht\n";
+		for (Charset charset : Arrays.asList(StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1)) {
+			ColumnReader reader = new ColumnReader(new ByteArrayInputStream(line.getBytes(charset)), charset);
+			assertTrue(reader.readLine());
+			assertEquals("m\u00e4ht", reader.getColumn(0));
+			assertEquals(4, reader.getIntColumn(2));
+			assertEquals("m\u00e4ht", reader.getColumn(4));
+		}
+	}
+
+}
@@ -0,0 +1,302 @@
+package senna.mapping;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import senna.Option;
+
+/**
+ * Generates a document and plausible SENNA output for it, with tags for every
+ * {@link Option}, so the parsing and mapping code can be measured without the
+ * SENNA binary. The same seed always gives the same document and output.
+ */
+public class SyntheticSennaOutput {
+
+	public static final Collection<Option<? extends MultiToken>> ALL_OPTIONS = Arrays
+			.<Option<? extends MultiToken>>asList(Option.POS, Option.CHK, Option.NER, Option.SRL, Option.PSG);
+
+	private static final String[] WORDS = { "the", "committee", "approved", "a", "new", "budget", "for", "schools",
+			"in", "Berlin", "after", "John", "Smith", "presented", "his", "report", "on", "Monday", "and", "members",
+			"discussed", "several", "changes", "to", "funding", "rules" };
+	private static final String[] POS_TAGS = { "DT", "NN", "VBD", "DT", "JJ", "NN", "IN", "NNS", "IN", "NNP", "IN",
+			"NNP", "NNP", "VBD", "PRP$", "NN", "IN", "NNP", "CC", "NNS", "VBD", "JJ", "NNS", "TO", "NN", "NNS" };
+	private static final String[] CHUNK_TYPES = { "NP", "VP", "PP", "NP", "ADVP" };
+	private static final String[] NER_TYPES = { "PER", "LOC", "ORG", "MISC" };
+
+	private static final List<String> OPTION_NAMES = Arrays.asList("POS", "CHK", "NER", "SRL", "PSG");
+
+	private final String documentText;
+	private final List<int[]> sentenceOffsets = new ArrayList<>();
+	private final List<List<int[]>> tokenOffsets = new ArrayList<>();
+	private final List<String> sentenceOutputs = new ArrayList<>();
+
+	public SyntheticSennaOutput(int sentences, int tokensPerSentence, boolean bracketTags, long seed) {
+		Random random = new Random(seed);
+		StringBuilder text = new StringBuilder();
+		for (int sentenceNumber = 0; sentenceNumber < sentences; sentenceNumber++) {
+			if (sentenceNumber > 0) {
+				text.append(' ');
+			}
+			int sentenceStart = text.length();
+			int tokens = Math.max(2, tokensPerSentence / 2 + random.nextInt(tokensPerSentence + 1));
+			List<int[]> offsets = new ArrayList<>();
+			for (int tokenNumber = 0; tokenNumber < tokens; tokenNumber++) {
+				if (tokenNumber > 0) {
+					text.append(' ');
+				}
+				String word = tokenNumber == tokens - 1 ? "." : WORDS[random.nextInt(WORDS.length)];
+				offsets.add(new int[] { text.length(), text.length() + word.length() });
+				text.append(word);
+			}
+			sentenceOffsets.add(new int[] { sentenceStart, text.length() });
+			tokenOffsets.add(offsets);
+			sentenceOutputs.add(sentenceOutput(text.substring(sentenceStart), ALL_OPTIONS, bracketTags, random));
+		}
+		this.documentText = text.toString();
+	}
+
+	public String getDocumentText() {
+		return documentText;
+	}
+
+	public int getSentenceCount() {
+		return sentenceOffsets.size();
+	}
+
+	/**
+	 * @param tagDictionary
+	 *            null for a regular document, otherwise a compact one
+	 */
+	public Document createDocument(boolean userTokens, TagDictionary tagDictionary) {
+		List<Sentence> sentences = new ArrayList<>();
+		for (int sentenceNumber = 0; sentenceNumber < sentenceOffsets.size(); sentenceNumber++) {
+			int[] offsets = sentenceOffsets.get(sentenceNumber);
+			if (userTokens) {
+				List<Token> tokens = new ArrayList<>();
+				for (int[] token : tokenOffsets.get(sentenceNumber)) {
+					tokens.add(new Token(null, token[0], token[1]));
+				}
+				sentences.add(new Sentence(null, offsets[0], offsets[1], tokens));
+			} else {
+				sentences.add(new Sentence(null, offsets[0], offsets[1]));
+			}
+		}
+		return new Document(documentText, sentences, tagDictionary);
+	}
+
+	public String getOutput() {
+		return getOutput(0, sentenceOutputs.size());
+	}
+
+	/**
+	 * @return the output of the sentences from (inclusive) to (exclusive)
+	 */
+	public String getOutput(int from, int to) {
+		StringBuilder output = new StringBuilder();
+		for (String sentenceOutput : sentenceOutputs.subList(from, to)) {
+			output.append(sentenceOutput);
+		}
+		return output.toString();
+	}
+
+	public byte[] getOutputBytes() {
+		return getOutput().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return the option of a benchmark parameter like "CHK"
+	 */
+	public static Option<? extends MultiToken> option(String name) {
+		int index = OPTION_NAMES.indexOf(name);
+		if (index < 0) {
+			throw new IllegalArgumentException("unknown option " + name);
+		}
+		return new ArrayList<>(ALL_OPTIONS).get(index);
+	}
+
+	/**
+	 * Generates SENNA output with offset tags for one input line, including the
+	 * empty line ending the sentence. Tokens are separated by spaces.
+	 */
+	public static String sentenceOutput(String sentence, Collection<Option<? extends MultiToken>> options,
+			boolean bracketTags, Random random) {
+		List<String> words = new ArrayList<>();
+		List<int[]> offsets = new ArrayList<>();
+		int index = 0;
+		while (index < sentence.length()) {
+			while (index < sentence.length() && sentence.charAt(index) == ' ') {
+				index++;
+			}
+			int start = index;
+			while (index < sentence.length() && sentence.charAt(index) != ' ') {
+				index++;
+			}
+			if (index > start) {
+				words.add(sentence.substring(start, index));
+				offsets.add(new int[] { start, index });
+			}
+		}
+		return sentenceOutput(words, offsets, options, true, bracketTags, false, random);
+	}
+
+	/**
+	 * Generates SENNA output for the given tokens, including the empty line ending
+	 * the sentence.
+	 * 
+	 * @param offsets
+	 *            start and end of each token in the sentence
+	 */
+	public static String sentenceOutput(List<String> words, List<int[]> offsets,
+			Collection<Option<? extends MultiToken>> options, boolean offsetTags, boolean bracketTags,
+			boolean iobTags, Random random) {
+		int tokens = words.size();
+		if (tokens == 0) {
+			return "\n";
+		}
+
+		String[] pos = new String[tokens];
+		List<Integer> verbs = new ArrayList<>();
+		for (int i = 0; i < tokens; i++) {
+			pos[i] = posTag(words.get(i), random);
+			if (pos[i].startsWith("VB")) {
+				verbs.add(i);
+			}
+		}
+		List<int[]> chunks = spans(tokens, 3, random);
+		String[] chunkTypes = new String[chunks.size()];
+		for (int i = 0; i < chunkTypes.length; i++) {
+			chunkTypes[i] = CHUNK_TYPES[random.nextInt(CHUNK_TYPES.length)];
+		}
+		String[] chk = spanTags(tokens, chunks, chunkTypes, bracketTags, iobTags);
+		List<int[]> entities = new ArrayList<>();
+		List<String> entityTypes = new ArrayList<>();
+		for (int[] chunk : chunks) {
+			if (random.nextInt(5) == 0) {
+				entities.add(chunk);
+				entityTypes.add(NER_TYPES[random.nextInt(NER_TYPES.length)]);
+			}
+		}
+		String[] ner = spanTags(tokens, entities, entityTypes.toArray(new String[0]), bracketTags, iobTags);
+		List<String[]> srl = new ArrayList<>();
+		for (int verb : verbs) {
+			List<int[]> arguments = new ArrayList<>();
+			List<String> argumentTypes = new ArrayList<>();
+			if (verb > 0) {
+				arguments.add(new int[] { Math.max(0, verb - 1 - random.nextInt(3)), verb - 1 });
+				argumentTypes.add("A0");
+			}
+			arguments.add(new int[] { verb, verb });
+			argumentTypes.add("V");
+			if (verb < tokens - 1) {
+				arguments.add(new int[] { verb + 1, Math.min(tokens - 1, verb + 1 + random.nextInt(4)) });
+				argumentTypes.add(random.nextBoolean() ? "A1" : "AM-TMP");
+			}
+			srl.add(spanTags(tokens, arguments, argumentTypes.toArray(new String[0]), bracketTags, iobTags));
+		}
+		String[] psg = psgTags(tokens, chunks, chunkTypes);
+
+		StringBuilder output = new StringBuilder();
+		for (int i = 0; i < tokens; i++) {
+			output.append(words.get(i));
+			if (offsetTags) {
+				output.append("\t ").append(offsets.get(i)[0]).append(' ').append(offsets.get(i)[1]);
+			}
+			if (options.contains(Option.POS)) {
+				output.append('\t').append(pos[i]);
+			}
+			if (options.contains(Option.CHK)) {
+				output.append('\t').append(chk[i]);
+			}
+			if (options.contains(Option.NER)) {
+				output.append('\t').append(ner[i]);
+			}
+			if (options.contains(Option.SRL)) {
+				output.append('\t').append(verbs.contains(i) ? words.get(i) : "-");
+				for (String[] arguments : srl) {
+					output.append('\t').append(arguments[i]);
+				}
+			}
+			if (options.contains(Option.PSG)) {
+				output.append('\t').append(psg[i]);
+			}
+			output.append('\n');
+		}
+		return output.append('\n').toString();
+	}
+
+	private static String posTag(String word, Random random) {
+		for (int i = 0; i < WORDS.length; i++) {
+			if (WORDS[i].equals(word)) {
+				return POS_TAGS[i];
+			}
+		}
+		return word.equals(".") ? "." : random.nextInt(4) == 0 ? "VBZ" : "NN";
+	}
+
+	private static List<int[]> spans(int tokens, int maxLength, Random random) {
+		List<int[]> spans = new ArrayList<>();
+		int start = 0;
+		while (start < tokens - 1) {
+			int end = Math.min(tokens - 2, start + random.nextInt(maxLength));
+			spans.add(new int[] { start, end });
+			start = end + 1 + (random.nextInt(4) == 0 ? 1 : 0);
+		}
+		return spans;
+	}
+
+	private static String[] spanTags(int tokens, List<int[]> spans, String[] types, boolean bracketTags,
+			boolean iobTags) {
+		String[] tags = new String[tokens];
+		Arrays.fill(tags, bracketTags ? "*" : "O");
+		for (int i = 0; i < spans.size(); i++) {
+			int start = spans.get(i)[0];
+			int end = spans.get(i)[1];
+			if (bracketTags) {
+				tags[start] = "(" + types[i] + "*";
+				tags[end] = start == end ? "(" + types[i] + "*)" : "*)";
+			} else if (iobTags) {
+				tags[start] = "B-" + types[i];
+				for (int inside = start + 1; inside <= end; inside++) {
+					tags[inside] = "I-" + types[i];
+				}
+			} else if (start == end) {
+				tags[start] = "S-" + types[i];
+			} else {
+				tags[start] = "B-" + types[i];
+				for (int inside = start + 1; inside < end; inside++) {
+					tags[inside] = "I-" + types[i];
+				}
+				tags[end] = "E-" + types[i];
+			}
+		}
+		return tags;
+	}
+
+	private static String[] psgTags(int tokens, List<int[]> chunks, String[] chunkTypes) {
+		StringBuilder[] tags = new StringBuilder[tokens];
+		for (int i = 0; i < tokens; i++) {
+			tags[i] = new StringBuilder();
+		}
+		tags[0].append("(S1(S");
+		for (int i = 0; i < chunks.size(); i++) {
+			tags[chunks.get(i)[0]].append('(').append(chunkTypes[i]);
+		}
+		for (int i = 0; i < tokens; i++) {
+			tags[i].append('*');
+		}
+		for (int i = 0; i < chunks.size(); i++) {
+			tags[chunks.get(i)[1]].append(')');
+		}
+		tags[tokens - 1].append("))");
+		String[] psg = new String[tokens];
+		for (int i = 0; i < tokens; i++) {
+			psg[i] = tags[i].toString();
+		}
+		return psg;
+	}
+
+}